@@ -0,0 +1,93 @@
+/**
+ *  Purpose:        JMH benchmarks for the particle physics in ParticleStore:
+ *                  the collision time between 2 particles and the bounce after a collision.
+ *                  The collision times of one particle against a block of candidates are
+ *                  measured both one pair at a time and as one HitBatch.
+ */
+
+package collision;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParticleBenchmark {
+    private static final int SIZE = 1024;  // Number of particles, a power of 2 to pick pairs cheaply
+    private static final long SEED = 42;
+    private static final int CANDIDATES = 32;  // The candidates of one prediction, about 9 cells of particles
+
+    private ParticleStore particles;  // Random particles
+    private ParticleStore pairs;  // Particles 2k and 2k + 1 touch each other
+    private int next;  // The pair used by the next call
+    private HitBatch batch;  // The same candidates for every call, CANDIDATES particles
+
+    @Setup
+    public void setup() {
+        Random rand = new Random(SEED);
+        particles = new ParticleStore(SIZE);
+        for (int i = 0; i < SIZE; i++)
+            particles.add(new Particle(Simulator.DEFAULT_SIZE, Simulator.DEFAULT_SIZE, rand));
+
+        // Bouncing particles that touch conserves the energy, so the velocities stay bounded
+        // no matter how many times the same pair bounces
+        double r = Particle.DEFAULT_RADIUS;
+        pairs = new ParticleStore(SIZE);
+        for (int i = 0; i < SIZE / 2; i++) {
+            double x = rand.nextDouble() * Simulator.DEFAULT_SIZE;
+            double y = rand.nextDouble() * Simulator.DEFAULT_SIZE;
+            double angle = rand.nextDouble() * 2 * Math.PI;
+            pairs.add(x, y, rand.nextGaussian(), rand.nextGaussian(), r, Particle.DEFAULT_MASS, 0);
+            pairs.add(x + 2 * r * Math.cos(angle), y + 2 * r * Math.sin(angle),
+                rand.nextGaussian(), rand.nextGaussian(), r, Particle.DEFAULT_MASS, 0);
+        }
+        next = 0;
+
+        batch = new HitBatch();
+        for (int k = 0; k < CANDIDATES; k++)
+            batch.add(rand.nextInt(SIZE));
+    }
+
+    @Benchmark
+    public double timeToHit() {
+        int i = next++ & (SIZE - 1);
+        return particles.timeToHit(i, (i * 31 + 7) & (SIZE - 1));
+    }
+
+    @Benchmark
+    public double timeToHitScalar() {
+        int i = next++ & (SIZE - 1);
+        double earliest = Double.POSITIVE_INFINITY;
+        for (int k = 0; k < CANDIDATES; k++)
+            earliest = Math.min(earliest, particles.timeToHit(i, batch.candidate(k)));
+        return earliest;
+    }
+
+    @Benchmark
+    public int timeToHitBatch() {
+        int i = next++ & (SIZE - 1);
+        return batch.earliest(particles, i);
+    }
+
+    @Benchmark
+    public int bounceOff() {
+        int i = (next++ << 1) & (SIZE - 1);
+        pairs.bounceOff(i, i + 1);
+        return pairs.count(i);
+    }
+}
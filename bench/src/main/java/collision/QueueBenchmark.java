@@ -0,0 +1,76 @@
+/**
+ *  Purpose:        JMH benchmarks for the priority queues at several heap sizes.
+ *                  Each operation removes the smallest item and inserts a later one, which is
+ *                  how the simulator uses its queue, so the size of the heap stays the same.
+ */
+
+package collision;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class QueueBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private MinPQ<Double> pq;
+    private EventQueue queue;
+    private EventQueue calendar;
+    private Random rand;
+
+    @Setup
+    public void setup() {
+        rand = new Random(SEED);
+        pq = new MinPQ<>();
+        queue = new HeapEventQueue(size);
+        calendar = new CalendarEventQueue(size);
+        for (int i = 0; i < size; i++) {
+            pq.insert(rand.nextDouble());
+            queue.set(i, rand.nextDouble(), 0, -1, 0, 0);
+            calendar.set(i, rand.nextDouble(), 0, -1, 0, 0);
+        }
+    }
+
+    @Benchmark
+    public double minPQRemoveInsert() {
+        double min = pq.remove();
+        pq.insert(min + rand.nextDouble());
+        return min;
+    }
+
+    @Benchmark
+    public double eventQueueRemoveSet() {
+        int i = queue.remove();
+        double min = queue.time(i);
+        queue.set(i, min + rand.nextDouble(), 0, -1, 0, 0);
+        return min;
+    }
+
+    @Benchmark
+    public double calendarQueueRemoveSet() {
+        int i = calendar.remove();
+        double min = calendar.time(i);
+        calendar.set(i, min + rand.nextDouble(), 0, -1, 0, 0);
+        return min;
+    }
+}
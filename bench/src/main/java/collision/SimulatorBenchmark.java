@@ -0,0 +1,92 @@
+/**
+ *  Purpose:        JMH benchmarks for the Simulator: the prediction of the next event of a
+ *                  particle at different numbers of particles, and a whole headless simulation.
+ *                  The simulation reports the number of collisions it processed, so the
+ *                  events per second can be read from the "events" counter.
+ */
+
+package collision;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulatorBenchmark {
+    private static final long SEED = 42;
+
+    @State(Scope.Thread)
+    public static class Prediction {
+        @Param({"100", "1000", "10000"})
+        public int particles;
+
+        public double limit = 10000;
+        public Simulator simulator;
+        public int next;
+
+        @Setup
+        public void setup() {
+            simulator = new Simulator(particles, new NullRenderer(), new Random(SEED));
+            next = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Run {
+        @Param({"100", "400"})
+        public int particles;
+
+        @Param({"100"})
+        public double limit;
+
+        public Simulator simulator;
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            simulator = new Simulator(particles, new NullRenderer(), new Random(SEED));
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Events {
+        public long events;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            events = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void predictCollission(Prediction state) {
+        state.simulator.predictCollission(state.next, state.limit);
+        state.next = (state.next + 1) % state.particles;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long simulate(Run state, Events counter) {
+        state.simulator.simulate(state.limit);
+        counter.events += state.simulator.events();
+        return state.simulator.events();
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ *  Purpose:        JMH benchmark for the time-stepped engine at different numbers of threads,
+ *                  used to check how the SteppedSimulator scales with the cores of the host.
+ *                  The "steps" counter gives the steps per second.
+ */
+
+package collision;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SteppedBenchmark {
+    private static final long SEED = 42;
+
+    @State(Scope.Thread)
+    public static class Run {
+        @Param({"1", "2", "4", "8", "16", "32"})
+        public int threads;
+
+        @Param({"10000"})
+        public int particles;
+
+        @Param({"10"})
+        public double limit;
+
+        public ForkJoinPool pool;
+        public SteppedSimulator simulator;
+
+        @Setup(Level.Trial)
+        public void start() {
+            pool = new ForkJoinPool(threads);
+        }
+
+        @Setup(Level.Invocation)
+        public void setup() {
+            simulator = new SteppedSimulator(particles, new NullRenderer(), new Random(SEED),
+                SteppedSimulator.DEFAULT_STEP, pool);
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            pool.shutdown();
+        }
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Steps {
+        public long steps;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            steps = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public long simulate(Run state, Steps counter) {
+        state.simulator.simulate(state.limit);
+        counter.steps += state.simulator.steps();
+        return state.simulator.steps();
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ *  Purpose:        A scenario read from a binary file, meant for millions of particles.
+ *                  The file is memory-mapped in windows, so it can be larger than 2 GB, and every
+ *                  property is copied as a whole array into the store, the same way as the
+ *                  particles of a Checkpoint.
+ *                  File layout, in big-endian order:
+ *                  header: magic, version, number of particles, 0 (int)
+ *                  particles: x, y, vx, vy, radius, mass, time (double[]), count, color (int[])
+ */
+
+package collision;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class BinaryScenario implements Scenario {
+    private static final int MAGIC = 0x4353434E;  // "CSCN", marks a scenario file
+    private static final int VERSION = 1;  // The version of the file layout
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;
+
+    private final Path file;  // The file to read
+
+    /**
+     * Create a scenario read from the given binary file.
+     * @param file The file
+     * @throws IllegalArgumentException when the file is null
+     */
+    public BinaryScenario(Path file) {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+
+        this.file = file;
+    }
+
+    @Override
+    public ParticleStore load() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("Not a scenario file: " + file);
+
+            MappedFile in = new MappedFile(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+            ByteBuffer buf = in.buffer(HEADER_BYTES);
+            if (buf.getInt() != MAGIC)
+                throw new IOException("Not a scenario file: " + file);
+            int version = buf.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported scenario version " + version + ": " + file);
+
+            int n = buf.getInt();
+            buf.getInt();
+            if (n < 0 || channel.size() != bytes(n))
+                throw new IOException("Truncated scenario file: " + file);
+
+            return ParticleStore.read(in, n);
+        }
+    }
+
+    /**
+     * Write particles to a binary scenario file. The particles are written as they are, so
+     * they should not have been simulated yet.
+     * @param particles The particles
+     * @param file The file to write, it is replaced if it exists
+     * @throws IOException when the file cannot be written
+     */
+    public static void write(ParticleStore particles, Path file) throws IOException {
+        int n = particles.size();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedFile out = new MappedFile(channel, FileChannel.MapMode.READ_WRITE, bytes(n));
+            out.buffer(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(n).putInt(0);
+            particles.write(out);
+            out.force();
+        }
+    }
+
+    /**
+     * Returns the size of a scenario file.
+     * @param n The number of particles
+     * @return The size in bytes
+     */
+    private static long bytes(int n) {
+        return HEADER_BYTES + (long) n * ParticleStore.BYTES;
+    }
+
+    // Test client, converts a scenario to a binary file. The input is a CSV or binary file
+    // given with --scenario=<file>, or the given number of particles generated from --seed=<n>
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2)
+            System.out.println("Please specify the number of particles and the output file");
+        else {
+            Scenario scenario = Scenario.fromOptions(args, Integer.parseInt(args[0]));
+            long start = System.nanoTime();
+            ParticleStore particles = scenario.load();
+            double loaded = (System.nanoTime() - start) / 1e9;
+            write(particles, Paths.get(args[1]));
+            System.out.printf("%d particles loaded in %.3f s and written to %s%n", particles.size(), loaded, args[1]);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ *  Purpose:        The broad phases that the Simulator can be started with, they decide which
+ *                  particles are checked when the next collision of a particle is predicted.
+ *                  GRID: a uniform grid of cells as wide as the largest particle, the best choice
+ *                  when all the particles have about the same radius
+ *                  SWEEP: sweep and prune along the x-axis, which does not depend on a cell size
+ *                  and so keeps working when the radii are very different
+ */
+
+package collision;
+
+public enum BroadPhase {
+    GRID, SWEEP;
+
+    /**
+     * Find the broad phase with the given name, ignoring the case.
+     * @param name The name of the broad phase, grid or sweep
+     * @return The broad phase with that name
+     * @throws IllegalArgumentException when there is no broad phase with that name
+     */
+    public static BroadPhase of(String name) {
+        for (BroadPhase phase : values())
+            if (phase.name().equalsIgnoreCase(name))
+                return phase;
+
+        throw new IllegalArgumentException("Unknown broad phase: " + name);
+    }
+}
@@ -0,0 +1,354 @@
+/**
+ *  Purpose:        A calendar queue (R. Brown, 1988) of the simulation events. The time axis is
+ *                  cut into days of equal width and the days are spread over a fixed number of
+ *                  buckets like the days of a year over a calendar, so day d goes into bucket
+ *                  d % buckets. Each bucket keeps its events sorted in a linked list stored in
+ *                  int arrays, and the earliest event is found by walking the buckets from the
+ *                  current day on.
+ *                  When the events are spread evenly over a moving horizon, as they are in the
+ *                  simulation, every bucket only holds a few events and both set() and remove()
+ *                  take O(1) amortised time instead of the O(logN) of the binary heap.
+ *                  The number of buckets follows the size of the queue, and the day width is
+ *                  re-estimated from the earliest events every time the buckets are resized.
+ *                  Like HeapEventQueue it never allocates after it is created.
+ */
+
+package collision;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class CalendarEventQueue implements EventQueue {
+    private static final int NONE = -1;  // Marks the end of a list
+    private static final int MIN_BUCKETS = 2;  // The buckets never shrink below this
+    private static final int SAMPLE = 25;  // The number of earliest events used to estimate the width
+    private static final double DEFAULT_WIDTH = 1.0;  // The day width before there is anything to sample
+
+    private int count;  // The current number of events in the queue
+    private int buckets;  // The number of buckets in use, always a power of 2
+    private int[] head;  // The earliest event of each bucket, head[0..buckets-1] is used
+    private int[] next, prev;  // The sorted list of events of each bucket
+    private boolean[] queued;  // Whether each index is in the queue
+    private double width;  // The width of a day
+    private long day;  // The current day, no event in the queue happens before it
+    private int resizes;  // The number of times the buckets were resized
+
+    // Scratch space used while resizing, so that resizing does not allocate
+    private int[] sample;
+    private double[] sampleTime;
+
+    // The details of the event at each index
+    private double[] time;
+    private int[] type;
+    private int[] other;
+    private int[] countA, countB;
+
+    /**
+     * Initialize an empty queue that can hold the indices from 0 to capacity - 1
+     * @param capacity The number of indices
+     * @throws IllegalArgumentException when the capacity is negative
+     */
+    public CalendarEventQueue(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative");
+
+        // The queue is resized to about half as many buckets as events, so this many is always enough
+        int maxBuckets = MIN_BUCKETS;
+        while (maxBuckets < capacity / 2)
+            maxBuckets *= 2;
+
+        count = 0;
+        buckets = MIN_BUCKETS;
+        head = new int[maxBuckets];
+        for (int b = 0; b < maxBuckets; b++)
+            head[b] = NONE;
+        next = new int[capacity];
+        prev = new int[capacity];
+        queued = new boolean[capacity];
+        width = DEFAULT_WIDTH;
+        day = 0;
+        resizes = 0;
+        sample = new int[SAMPLE];
+        sampleTime = new double[SAMPLE];
+        time = new double[capacity];
+        type = new int[capacity];
+        other = new int[capacity];
+        countA = new int[capacity];
+        countB = new int[capacity];
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public boolean contains(int i) {
+        return queued[i];
+    }
+
+    @Override
+    public void set(int i, double time, int type, int other, int countA, int countB) {
+        if (queued[i]) {
+            unlink(i);
+            count--;
+        }
+
+        this.time[i] = time;
+        this.type[i] = type;
+        this.other[i] = other;
+        this.countA[i] = countA;
+        this.countB[i] = countB;
+
+        link(i);
+        count++;
+        if (count > 2 * buckets && 2 * buckets <= head.length)
+            resize(2 * buckets);
+    }
+
+    @Override
+    public int minIndex() {
+        if (count == 0)
+            throw new NoSuchElementException("Queue is empty");
+
+        // Walk one year of buckets from the current day, the first event that falls on the day
+        // being looked at is the earliest one
+        for (int k = 0; k < buckets; k++) {
+            int i = head[bucket(day)];
+            if (i != NONE && dayOf(time[i]) <= day)
+                return i;
+            day++;
+        }
+
+        // The events are sparse compared to the day width, jump straight to the earliest one
+        int min = NONE;
+        for (int b = 0; b < buckets; b++) {
+            int i = head[b];
+            if (i != NONE && (min == NONE || time[i] < time[min]))
+                min = i;
+        }
+        day = dayOf(time[min]);
+        return min;
+    }
+
+    @Override
+    public int remove() {
+        int min = minIndex();
+        delete(min);
+        return min;
+    }
+
+    @Override
+    public void delete(int i) {
+        if (!contains(i))
+            throw new IllegalArgumentException("Index is not in the queue");
+
+        unlink(i);
+        count--;
+        if (count < buckets / 2 && buckets > MIN_BUCKETS)
+            resize(buckets / 2);
+    }
+
+    @Override
+    public double time(int i) {
+        return time[i];
+    }
+
+    @Override
+    public int type(int i) {
+        return type[i];
+    }
+
+    @Override
+    public int other(int i) {
+        return other[i];
+    }
+
+    @Override
+    public int countA(int i) {
+        return countA[i];
+    }
+
+    @Override
+    public int countB(int i) {
+        return countB[i];
+    }
+
+    /**
+     * Returns the number of buckets currently in use.
+     * @return The number of buckets
+     */
+    public int buckets() {
+        return buckets;
+    }
+
+    /**
+     * Returns the current width of a day.
+     * @return The day width
+     */
+    public double width() {
+        return width;
+    }
+
+    /**
+     * Returns the number of times the buckets were resized so far.
+     * @return The number of resizes
+     */
+    public int resizes() {
+        return resizes;
+    }
+
+    /**
+     * Returns the day of the given time
+     * @param t The time
+     * @return The day that the time falls on
+     */
+    private long dayOf(double t) {
+        return (long) Math.floor(t / width);
+    }
+
+    /**
+     * Returns the bucket that holds the events of the given day
+     * @param d The day
+     * @return The bucket of the day
+     */
+    private int bucket(long d) {
+        return (int) (d & (buckets - 1));
+    }
+
+    /**
+     * Insert an index into its bucket, after the events that happen at or before its time.
+     * @param i The index
+     */
+    private void link(int i) {
+        long d = dayOf(time[i]);
+        int b = bucket(d);
+        double t = time[i];
+
+        int before = NONE, after = head[b];
+        while (after != NONE && time[after] <= t) {
+            before = after;
+            after = next[after];
+        }
+
+        prev[i] = before;
+        next[i] = after;
+        if (before == NONE) head[b] = i;
+        else next[before] = i;
+        if (after != NONE) prev[after] = i;
+        queued[i] = true;
+
+        // An event before the current day moves the calendar back
+        if (d < day) day = d;
+    }
+
+    /**
+     * Remove an index from its bucket
+     * @param i The index
+     */
+    private void unlink(int i) {
+        if (prev[i] == NONE) head[bucket(dayOf(time[i]))] = next[i];
+        else next[prev[i]] = next[i];
+        if (next[i] != NONE) prev[next[i]] = prev[i];
+        queued[i] = false;
+    }
+
+    /**
+     * Spread the events over a new number of buckets with a new day width. The width is
+     * estimated from the gaps between the earliest events, so that a bucket holds about
+     * 3 of them, leaving out the gaps that are more than twice as long as the average.
+     * @param size The new number of buckets
+     */
+    private void resize(int size) {
+        // Take out the earliest events in order
+        int n = Math.min(SAMPLE, count);
+        for (int k = 0; k < n; k++) {
+            int i = minIndex();
+            unlink(i);
+            sample[k] = i;
+            sampleTime[k] = time[i];
+        }
+
+        if (n > 1) {
+            double average = (sampleTime[n - 1] - sampleTime[0]) / (n - 1);
+            double total = 0;
+            int gaps = 0;
+            for (int k = 1; k < n; k++) {
+                double gap = sampleTime[k] - sampleTime[k - 1];
+                if (gap <= 2 * average) {
+                    total += gap;
+                    gaps++;
+                }
+            }
+
+            double estimate = 3 * total / gaps;
+            if (estimate > 0 && estimate < Double.POSITIVE_INFINITY)
+                width = estimate;
+        }
+
+        // Chain the rest of the events together through next[] and empty the old buckets
+        int chain = NONE;
+        for (int b = 0; b < buckets; b++) {
+            int i = head[b];
+            while (i != NONE) {
+                int following = next[i];
+                next[i] = chain;
+                chain = i;
+                i = following;
+            }
+            head[b] = NONE;
+        }
+
+        buckets = size;
+        resizes++;
+        day = n > 0 ? dayOf(sampleTime[0]) : Long.MAX_VALUE;
+
+        while (chain != NONE) {
+            int following = next[chain];
+            link(chain);
+            chain = following;
+        }
+        for (int k = 0; k < n; k++)
+            link(sample[k]);
+    }
+
+    // Test client, checks the queue against HeapEventQueue and compares their speed
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+
+        EventQueue[] queues = { new HeapEventQueue(n), new CalendarEventQueue(n) };
+        double[] sums = new double[queues.length];
+        for (int q = 0; q < queues.length; q++) {
+            // Each round removes the earliest event and predicts a new one for its index
+            EventQueue queue = queues[q];
+            Random rand = new Random(42);
+            for (int i = 0; i < n; i++)
+                queue.set(i, rand.nextDouble(), 0, -1, 0, 0);
+
+            long start = System.nanoTime();
+            double last = 0;
+            for (int r = 0; r < rounds; r++) {
+                int i = queue.remove();
+                double t = queue.time(i);
+                if (t < last)
+                    throw new IllegalStateException("Events removed out of order");
+                last = t;
+                sums[q] += t;
+                queue.set(i, t + rand.nextDouble(), 0, -1, 0, 0);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            System.out.printf("%s: %.1f ns per event%n",
+                queue.getClass().getSimpleName(), seconds * 1e9 / rounds);
+        }
+
+        if (sums[0] != sums[1])
+            throw new IllegalStateException("The queues removed different events");
+    }
+}
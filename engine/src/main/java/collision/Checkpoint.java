@@ -0,0 +1,179 @@
+/**
+ *  Purpose:        A snapshot of the state of a Simulator that can be written to a binary file
+ *                  and read back, so a long run can be resumed where it stopped.
+ *                  It holds the particles, the grid cell of every particle, the simulation time
+ *                  and the pending events. The file is written and read through windows of a
+ *                  MappedFile, so it can be larger than 2 GB, and the particle properties are
+ *                  copied as whole arrays.
+ *                  File layout, in big-endian order:
+ *                  header: magic, version, number of particles, number of events (int),
+ *                          simulation time, time limit (double), processed events (long)
+ *                  particles: x, y, vx, vy, radius, mass, time (double[]), count, color (int[])
+ *                  cells: the grid cell of every particle (int[])
+ *                  events: index, type, other, countA, countB (int), time (double) per event
+ */
+
+package collision;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+public class Checkpoint {
+    private static final int MAGIC = 0x434F4C4C;  // "COLL", marks a checkpoint file
+    private static final int VERSION = 1;  // The version of the file layout
+    private static final int HEADER_BYTES = 4 * Integer.BYTES + 2 * Double.BYTES + Long.BYTES;
+    private static final int EVENT_BYTES = 5 * Integer.BYTES + Double.BYTES;
+
+    final ParticleStore particles;  // The particles
+    final int[] cells;  // The grid cell of each particle
+    final double time;  // The simulation time
+    final double limit;  // The time limit the pending events were predicted with
+    final long processed;  // The number of valid events processed so far
+
+    // The pending events, event k is at index eventIndex[k] of the queue
+    final int[] eventIndex, eventType, eventOther, eventCountA, eventCountB;
+    final double[] eventTime;
+
+    /**
+     * Create a checkpoint from the state of a simulator. The arrays are kept, not copied.
+     */
+    Checkpoint(ParticleStore particles, int[] cells, double time, double limit, long processed,
+               int[] eventIndex, double[] eventTime, int[] eventType, int[] eventOther,
+               int[] eventCountA, int[] eventCountB) {
+        this.particles = particles;
+        this.cells = cells;
+        this.time = time;
+        this.limit = limit;
+        this.processed = processed;
+        this.eventIndex = eventIndex;
+        this.eventTime = eventTime;
+        this.eventType = eventType;
+        this.eventOther = eventOther;
+        this.eventCountA = eventCountA;
+        this.eventCountB = eventCountB;
+    }
+
+    /**
+     * Returns the number of particles in the checkpoint.
+     * @return The number of particles
+     */
+    public int size() {
+        return particles.size();
+    }
+
+    /**
+     * Returns the simulation time when the checkpoint was taken.
+     * @return The simulation time
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Returns the number of valid events processed before the checkpoint was taken.
+     * @return The number of events
+     */
+    public long processed() {
+        return processed;
+    }
+
+    /**
+     * Returns the number of pending events in the checkpoint.
+     * @return The number of events
+     */
+    public int pending() {
+        return eventIndex.length;
+    }
+
+    /**
+     * Write the checkpoint to a file. It is written to a temporary file next to it first and
+     * then moved over it, so a run that dies while writing keeps the previous checkpoint.
+     * @param file The file to write
+     * @throws IOException when the file cannot be written
+     */
+    public void write(Path file) throws IOException {
+        int n = particles.size();
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedFile out = new MappedFile(channel, FileChannel.MapMode.READ_WRITE, bytes(n, pending()));
+            out.buffer(HEADER_BYTES).putInt(MAGIC).putInt(VERSION).putInt(n).putInt(pending())
+                .putDouble(time).putDouble(limit).putLong(processed);
+
+            particles.write(out);
+            out.put(cells, n);
+
+            for (int k = 0; k < pending(); k++) {
+                ByteBuffer buf = out.buffer(EVENT_BYTES);
+                buf.putInt(eventIndex[k]).putInt(eventType[k]).putInt(eventOther[k]);
+                buf.putInt(eventCountA[k]).putInt(eventCountB[k]).putDouble(eventTime[k]);
+            }
+            out.force();
+        }
+
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Read a checkpoint from a file written by write(Path).
+     * @param file The file to read
+     * @return The checkpoint
+     * @throws IOException when the file cannot be read, is not a checkpoint or is truncated
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException("Not a checkpoint file: " + file);
+
+            MappedFile in = new MappedFile(channel, FileChannel.MapMode.READ_ONLY, channel.size());
+            ByteBuffer buf = in.buffer(HEADER_BYTES);
+            if (buf.getInt() != MAGIC)
+                throw new IOException("Not a checkpoint file: " + file);
+            int version = buf.getInt();
+            if (version != VERSION)
+                throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+
+            int n = buf.getInt(), pending = buf.getInt();
+            if (n < 0 || pending < 0 || channel.size() != bytes(n, pending))
+                throw new IOException("Truncated checkpoint file: " + file);
+            double time = buf.getDouble(), limit = buf.getDouble();
+            long processed = buf.getLong();
+
+            ParticleStore particles = ParticleStore.read(in, n);
+            int[] cells = new int[n];
+            in.get(cells);
+
+            int[] eventIndex = new int[pending], eventType = new int[pending], eventOther = new int[pending];
+            int[] eventCountA = new int[pending], eventCountB = new int[pending];
+            double[] eventTime = new double[pending];
+            for (int k = 0; k < pending; k++) {
+                buf = in.buffer(EVENT_BYTES);
+                eventIndex[k] = buf.getInt();
+                eventType[k] = buf.getInt();
+                eventOther[k] = buf.getInt();
+                eventCountA[k] = buf.getInt();
+                eventCountB[k] = buf.getInt();
+                eventTime[k] = buf.getDouble();
+            }
+
+            return new Checkpoint(particles, cells, time, limit, processed,
+                eventIndex, eventTime, eventType, eventOther, eventCountA, eventCountB);
+        }
+    }
+
+    /**
+     * Returns the size of a checkpoint file.
+     * @param n The number of particles
+     * @param pending The number of pending events
+     * @return The size in bytes
+     */
+    private static long bytes(int n, int pending) {
+        return HEADER_BYTES + (long) n * (ParticleStore.BYTES + Integer.BYTES) + (long) pending * EVENT_BYTES;
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ *  Purpose:        A scenario read from a CSV file with one particle per line:
+ *                  x, y, vx, vy[, radius[, mass[, color]]]
+ *                  The missing columns take the defaults of Particle, the color is an RGB int
+ *                  written in decimal or in hex as 0xRRGGBB or #RRGGBB. Empty lines, lines
+ *                  starting with # and a first line starting with a letter (a header) are skipped.
+ *                  The file is memory-mapped and scanned twice: once to count the lines, so the
+ *                  store is allocated only once, and once to parse the values in place.
+ */
+
+package collision;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class CsvScenario implements Scenario {
+    private static final int COLUMNS = 7;  // The largest number of values on a line
+
+    private final Path file;  // The file to read
+
+    /**
+     * Create a scenario read from the given CSV file.
+     * @param file The file
+     * @throws IllegalArgumentException when the file is null
+     */
+    public CsvScenario(Path file) {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+
+        this.file = file;
+    }
+
+    @Override
+    public ParticleStore load() throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE)
+                throw new IOException("CSV file too large, use the binary format instead: " + file);
+
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int length = buf.limit();
+            int lines = 0;
+            for (int k = 0; k < length; k++)
+                if (buf.get(k) == '\n') lines++;
+
+            ParticleStore particles = new ParticleStore(lines + 1);
+            double[] values = new double[COLUMNS];
+            byte[] field = new byte[64];
+            int line = 0;
+            for (int start = 0; start < length; line++) {
+                int end = start;
+                while (end < length && buf.get(end) != '\n') end++;
+
+                int count = 0, from = start;
+                boolean skip = isSkipped(buf, start, end, line == 0);
+                while (!skip && from < end) {
+                    int to = from;
+                    while (to < end && buf.get(to) != ',') to++;
+                    if (count == COLUMNS)
+                        throw new IOException("Too many values on line " + (line + 1) + ": " + file);
+
+                    int n = trimmed(buf, from, to, field);
+                    try {
+                        values[count] = count == COLUMNS - 1 ? parseColor(field, n) : parse(field, n);
+                    }
+                    catch (NumberFormatException e) {
+                        throw new IOException("Invalid value on line " + (line + 1) + ": " + file, e);
+                    }
+                    count++;
+                    from = to + 1;
+                }
+
+                if (!skip) {
+                    if (count < 4)
+                        throw new IOException("Expected at least x, y, vx, vy on line " + (line + 1) + ": " + file);
+                    particles.add(values[0], values[1], values[2], values[3],
+                        count > 4 ? values[4] : Particle.DEFAULT_RADIUS,
+                        count > 5 ? values[5] : Particle.DEFAULT_MASS,
+                        count > 6 ? (int) values[6] : Particle.DEFAULT_COLOR);
+                }
+                start = end + 1;
+            }
+            return particles;
+        }
+    }
+
+    /**
+     * Checks if a line holds no particle: it is empty, a comment or the header.
+     * @param buf The file
+     * @param start The first byte of the line
+     * @param end The byte after the last one of the line
+     * @param first true if it is the first line of the file
+     * @return true if the line is skipped or false otherwise
+     */
+    private static boolean isSkipped(MappedByteBuffer buf, int start, int end, boolean first) {
+        while (start < end && Character.isWhitespace(buf.get(start))) start++;
+        if (start == end) return true;
+
+        byte b = buf.get(start);
+        return b == '#' || (first && Character.isLetter(b));
+    }
+
+    /**
+     * Copy a field without the surrounding spaces into the given array.
+     * @param buf The file
+     * @param from The first byte of the field
+     * @param to The byte after the last one of the field
+     * @param field Where the field is copied to
+     * @return The length of the field
+     * @throws NumberFormatException when the field is too long to be a number
+     */
+    private static int trimmed(MappedByteBuffer buf, int from, int to, byte[] field) {
+        while (from < to && Character.isWhitespace(buf.get(from))) from++;
+        while (to > from && Character.isWhitespace(buf.get(to - 1))) to--;
+        if (to - from > field.length)
+            throw new NumberFormatException("Value too long");
+
+        for (int k = from; k < to; k++)
+            field[k - from] = buf.get(k);
+        return to - from;
+    }
+
+    /**
+     * Parse a number.
+     * @param field The characters of the number
+     * @param n The number of characters
+     * @return The number
+     * @throws NumberFormatException when it is not a number
+     */
+    private static double parse(byte[] field, int n) {
+        return Double.parseDouble(new String(field, 0, n, StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * Parse a color written in decimal or in hex as 0xRRGGBB or #RRGGBB.
+     * @param field The characters of the color
+     * @param n The number of characters
+     * @return The color as packed 0xRRGGBB
+     * @throws NumberFormatException when it is not a color
+     */
+    private static int parseColor(byte[] field, int n) {
+        String s = new String(field, 0, n, StandardCharsets.US_ASCII);
+        if (s.startsWith("#"))
+            return Integer.parseInt(s.substring(1), 16);
+        if (s.startsWith("0x") || s.startsWith("0X"))
+            return Integer.parseInt(s.substring(2), 16);
+        return Integer.parseInt(s);
+    }
+}
@@ -0,0 +1,230 @@
+/**
+ *  Purpose:        Runs many independent headless simulations in one JVM for a parameter sweep,
+ *                  instead of one process per simulation. Every combination of the numbers of
+ *                  particles, radii and time limits is run a number of times, each run with its
+ *                  own seed, on a fixed number of threads. The summary of every run (events,
+ *                  wall time, energy) is written to one CSV report.
+ *                  The seeds are drawn from one base seed in the order of the runs, so the whole
+ *                  sweep can be repeated exactly whatever the number of threads is.
+ */
+
+package collision;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class Ensemble {
+    /**
+     * The parameters of one run of the sweep.
+     */
+    public static class Run {
+        public final int particles;  // The number of particles
+        public final double radius;  // The radius of every particle
+        public final double limit;  // The time limit
+        public final long seed;  // The seed the particles are generated from
+
+        public Run(int particles, double radius, double limit, long seed) {
+            this.particles = particles;
+            this.radius = radius;
+            this.limit = limit;
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * The summary of one finished run.
+     */
+    public static class Result {
+        public final Run run;  // The parameters of the run
+        public final long events;  // The number of collisions with a particle or a wall processed
+        public final double seconds;  // The wall time of the simulation, without creating the particles
+        public final double initialEnergy, finalEnergy;  // The kinetic energy at the start and the end
+
+        public Result(Run run, long events, double seconds, double initialEnergy, double finalEnergy) {
+            this.run = run;
+            this.events = events;
+            this.seconds = seconds;
+            this.initialEnergy = initialEnergy;
+            this.finalEnergy = finalEnergy;
+        }
+    }
+
+    private final Scheduler scheduler;  // The kind of event queue used by every run
+    private final int threads;  // The number of runs at the same time
+
+    /**
+     * Create an ensemble runner.
+     * @param scheduler The kind of event queue used by every run
+     * @param threads The number of runs at the same time
+     * @throws IllegalArgumentException when the scheduler is null or the number of threads is not positive
+     */
+    public Ensemble(Scheduler scheduler, int threads) {
+        if (scheduler == null)
+            throw new IllegalArgumentException("Scheduler cannot be null");
+        if (threads <= 0)
+            throw new IllegalArgumentException("Number of threads must be positive");
+
+        this.scheduler = scheduler;
+        this.threads = threads;
+    }
+
+    /**
+     * Create the runs of a sweep: every combination of the parameters, repeated the given
+     * number of times, with seeds drawn one after another from the base seed.
+     * @param particles The numbers of particles
+     * @param radii The radii
+     * @param limits The time limits
+     * @param repeats The number of runs of each combination
+     * @param seed The base seed
+     * @return The runs
+     */
+    public static List<Run> sweep(int[] particles, double[] radii, double[] limits, int repeats, long seed) {
+        Random seeds = new Random(seed);
+        List<Run> runs = new ArrayList<>();
+        for (int n : particles)
+            for (double radius : radii)
+                for (double limit : limits)
+                    for (int k = 0; k < repeats; k++)
+                        runs.add(new Run(n, radius, limit, seeds.nextLong()));
+        return runs;
+    }
+
+    /**
+     * Execute all the runs and wait for them to finish.
+     * @param runs The runs
+     * @return The results, in the same order as the runs
+     * @throws IllegalStateException when a run failed, with the failure as its cause
+     */
+    public List<Result> execute(List<Run> runs) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Result>> tasks = new ArrayList<>();
+            for (Run run : runs)
+                tasks.add(() -> execute(run));
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : executor.invokeAll(tasks))
+                results.add(future.get());
+            return results;
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("A run of the ensemble failed", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The ensemble was interrupted", e);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Execute one run on the current thread.
+     * @param run The run
+     * @return The result
+     */
+    private Result execute(Run run) {
+        ParticleStore particles = new RandomScenario(run.particles, run.seed, run.radius).load();
+        Simulator simulator = new Simulator(particles, new NullRenderer(), scheduler);
+        double initial = simulator.energy();
+
+        long start = System.nanoTime();
+        simulator.simulate(run.limit);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return new Result(run, simulator.events(), seconds, initial, simulator.energy());
+    }
+
+    /**
+     * Write the results to a CSV file with one line per run.
+     * @param results The results
+     * @param file The file to write, it is replaced if it exists
+     * @throws IOException when the file cannot be written
+     */
+    public static void report(List<Result> results, Path file) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            out.write("particles,radius,limit,seed,events,seconds,events_per_second,initial_energy,final_energy");
+            out.newLine();
+            for (Result r : results) {
+                out.write(String.format("%d,%s,%s,%d,%d,%.6f,%.0f,%.9g,%.9g", r.run.particles, r.run.radius,
+                    r.run.limit, r.run.seed, r.events, r.seconds, r.events / r.seconds, r.initialEnergy, r.finalEnergy));
+                out.newLine();
+            }
+        }
+    }
+
+    /**
+     * Parse a comma separated list of integers.
+     * @param list The list
+     * @return The values
+     */
+    private static int[] ints(String list) {
+        String[] parts = list.split(",");
+        int[] values = new int[parts.length];
+        for (int k = 0; k < parts.length; k++)
+            values[k] = Integer.parseInt(parts[k].trim());
+        return values;
+    }
+
+    /**
+     * Parse a comma separated list of numbers.
+     * @param list The list
+     * @return The values
+     */
+    private static double[] doubles(String list) {
+        String[] parts = list.split(",");
+        double[] values = new double[parts.length];
+        for (int k = 0; k < parts.length; k++)
+            values[k] = Double.parseDouble(parts[k].trim());
+        return values;
+    }
+
+    // Test client, runs a sweep and writes the report to the given file. The parameters are
+    // comma separated lists: --particles=100,1000 --radii=5,10 --limits=100,1000, each
+    // combination is run --repeats=<n> times with seeds drawn from --seed=<n>. --threads sets
+    // the number of runs at the same time and --scheduler the event queue
+    public static void main(String[] args) {
+        if (args.length < 1) {
+            System.out.println("Please specify the report file");
+            return;
+        }
+
+        List<Run> runs = sweep(ints(Options.get(args, "particles", "100")),
+            doubles(Options.get(args, "radii", String.valueOf(Particle.DEFAULT_RADIUS))),
+            doubles(Options.get(args, "limits", "1000")),
+            Integer.parseInt(Options.get(args, "repeats", "1")),
+            Long.parseLong(Options.get(args, "seed", "0")));
+        int threads = Integer.parseInt(Options.get(args, "threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Ensemble ensemble = new Ensemble(Scheduler.of(Options.get(args, "scheduler", "heap")), threads);
+
+        long start = System.nanoTime();
+        List<Result> results = ensemble.execute(runs);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        try {
+            report(results, Paths.get(args[0]));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot write the report", e);
+        }
+
+        long events = 0;
+        for (Result r : results)
+            events += r.events;
+        System.out.printf("%d runs, %d events in %.3f s on %d threads (%.0f events/s)%n",
+            results.size(), events, seconds, threads, events / seconds);
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ *  Purpose:        Records every collision of a simulation to a binary file for offline analysis.
+ *                  The simulation thread appends fixed-width records to a ring buffer and a
+ *                  background thread drains the buffer to the file through a FileChannel, as
+ *                  many records at once as are waiting. There is one writer and one reader, so
+ *                  the ring buffer needs no locks: each side only moves its own counter and
+ *                  the volatile counters publish the records to the other side. When the buffer
+ *                  is full the record is dropped and counted instead of waiting for the disk.
+ *                  File layout, in big-endian order:
+ *                  header: magic, version, record size, 0 (int)
+ *                  records: time (double), type, a, b, 0 (int), vxA, vyA, vxB, vyB (double)
+ *                  b is -1 and its velocity 0 for the wall events.
+ */
+
+package collision;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.LockSupport;
+
+public class EventLog implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1 << 16;  // Default number of records in the ring buffer
+    public static final int RECORD_BYTES = 56;  // The size of a record: time, type, a, b, padding and 4 velocities
+    private static final int MAGIC = 0x43455654;  // "CEVT", marks an event log file
+    private static final int VERSION = 1;  // The version of the file layout
+    private static final long IDLE_NANOS = 1000000;  // How long the drain thread sleeps when the buffer is empty
+
+    private final FileChannel channel;  // The file the records are written to
+    private final ByteBuffer ring;  // The records waiting to be written
+    private final int mask;  // The number of records in the ring buffer minus 1
+    private final Thread drainer;  // Writes the records to the file
+
+    private volatile long head;  // The number of records appended, only the simulation thread writes it
+    private volatile long tail;  // The number of records written, only the drain thread writes it
+    private volatile boolean closed;  // Tells the drain thread to write what is left and stop
+    private volatile IOException failure;  // The error that stopped the drain thread, if any
+    private long dropped;  // The number of records dropped because the buffer was full
+
+    /**
+     * Create an event log that writes to the given file with a ring buffer of DEFAULT_CAPACITY records.
+     * @param file The file to write, it is replaced if it exists
+     * @throws IOException when the file cannot be opened
+     */
+    public EventLog(Path file) throws IOException {
+        this(file, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an event log that writes to the given file.
+     * @param file The file to write, it is replaced if it exists
+     * @param capacity The number of records in the ring buffer, a power of 2
+     * @throws IOException when the file cannot be opened
+     * @throws IllegalArgumentException when the file is null or the capacity is not a power of 2
+     */
+    public EventLog(Path file, int capacity) throws IOException {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("Capacity must be a power of 2");
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(4 * Integer.BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(RECORD_BYTES).putInt(0).flip();
+        while (header.hasRemaining())
+            channel.write(header);
+
+        ring = ByteBuffer.allocateDirect(capacity * RECORD_BYTES);
+        mask = capacity - 1;
+        drainer = new Thread(this::drain, "event-log");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    /**
+     * Append a record to the ring buffer. Called by the simulation thread only, it never
+     * waits: the record is dropped if the buffer is full.
+     * @param time The time of the event
+     * @param type The type of the event, one of the event types of the Simulator
+     * @param a The particle of the event
+     * @param b The partner particle, or -1 for the wall events
+     * @param vxA The horizontal velocity of a after the event
+     * @param vyA The vertical velocity of a after the event
+     * @param vxB The horizontal velocity of b after the event
+     * @param vyB The vertical velocity of b after the event
+     * @return true if the record was appended or false if it was dropped
+     */
+    public boolean append(double time, int type, int a, int b, double vxA, double vyA, double vxB, double vyB) {
+        long h = head;
+        if (h - tail > mask) {
+            dropped++;
+            return false;
+        }
+
+        int at = (int) (h & mask) * RECORD_BYTES;
+        ring.putDouble(at, time);
+        ring.putInt(at + 8, type);
+        ring.putInt(at + 12, a);
+        ring.putInt(at + 16, b);
+        ring.putInt(at + 20, 0);
+        ring.putDouble(at + 24, vxA);
+        ring.putDouble(at + 32, vyA);
+        ring.putDouble(at + 40, vxB);
+        ring.putDouble(at + 48, vyB);
+        head = h + 1;  // Publishes the record to the drain thread
+        return true;
+    }
+
+    /**
+     * Returns the number of records appended so far.
+     * @return The number of records
+     */
+    public long appended() {
+        return head;
+    }
+
+    /**
+     * Returns the number of records dropped because the ring buffer was full.
+     * @return The number of dropped records
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Write the records that are left and close the file.
+     * @throws IOException when the records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(drainer);
+        try {
+            drainer.join();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            channel.close();
+        }
+
+        if (failure != null)
+            throw failure;
+    }
+
+    /**
+     * The loop of the drain thread, writes everything between the tail and the head in one go
+     * or 2 if it wraps around the end of the buffer.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                boolean last = closed;
+                long h = head, t = tail;
+                if (h == t) {
+                    if (last) return;
+                    LockSupport.parkNanos(IDLE_NANOS);
+                    continue;
+                }
+
+                int from = (int) (t & mask), n = (int) Math.min(h - t, mask + 1 - from);
+                ByteBuffer batch = ring.duplicate();
+                batch.limit((from + n) * RECORD_BYTES).position(from * RECORD_BYTES);
+                while (batch.hasRemaining())
+                    channel.write(batch);
+                tail = t + n;  // Gives the space back to the simulation thread
+            }
+        }
+        catch (IOException e) {
+            failure = e;  // The buffer fills up and the records are dropped from now on
+        }
+    }
+
+    // Test client, prints the number of records of each type in a log file and the first few
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Please specify the event log file");
+            return;
+        }
+
+        try (FileChannel in = FileChannel.open(Paths.get(args[0]), StandardOpenOption.READ)) {
+            ByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getInt() != RECORD_BYTES)
+                throw new IOException("Not an event log file: " + args[0]);
+            buf.getInt();
+
+            long[] byType = new long[Simulator.CELL + 1];
+            for (long k = 0; buf.remaining() >= RECORD_BYTES; k++) {
+                double time = buf.getDouble();
+                int type = buf.getInt(), a = buf.getInt(), b = buf.getInt();
+                buf.getInt();
+                double vxA = buf.getDouble(), vyA = buf.getDouble(), vxB = buf.getDouble(), vyB = buf.getDouble();
+                byType[type]++;
+                if (k < 10)
+                    System.out.printf("t=%.4f type=%d a=%d b=%d va=(%.3f, %.3f) vb=(%.3f, %.3f)%n",
+                        time, type, a, b, vxA, vyA, vxB, vyB);
+            }
+            System.out.printf("particle=%d vwall=%d hwall=%d%n",
+                byType[Simulator.PARTICLE], byType[Simulator.VERTICAL_WALL], byType[Simulator.HORIZONTAL_WALL]);
+        }
+    }
+}
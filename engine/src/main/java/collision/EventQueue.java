@@ -0,0 +1,102 @@
+/**
+ *  Purpose:        The interface of the event queue used by the Simulator. It is an indexed
+ *                  minimum priority queue of the simulation events: each index holds at most
+ *                  one event, made of a time, a type, a partner and the counts of the particles
+ *                  when the event was predicted.
+ *                  HeapEventQueue and CalendarEventQueue are the implementations, the Scheduler
+ *                  enum picks one of them.
+ */
+
+package collision;
+
+import java.util.NoSuchElementException;
+
+public interface EventQueue {
+    /**
+     * Returns the size of the queue
+     * @return The current number of events stored in the queue
+     */
+    int size();
+
+    /**
+     * Checks if the queue is empty or not.
+     * @return true if the queue is empty or false otherwise.
+     */
+    boolean isEmpty();
+
+    /**
+     * Checks if there is an event at the given index.
+     * @param i The index
+     * @return true if the index is in the queue or false otherwise
+     */
+    boolean contains(int i);
+
+    /**
+     * Put an event at the given index, replacing the event that is already there.
+     * @param i The index
+     * @param time The time of the event
+     * @param type The type of the event
+     * @param other The partner particle or the entered cell, depending on the type
+     * @param countA The count of the particle at the index when the event was predicted
+     * @param countB The count of the partner particle when the event was predicted
+     */
+    void set(int i, double time, int type, int other, int countA, int countB);
+
+    /**
+     * Returns the index of the earliest event
+     * @return the index of the earliest event
+     * @throws NoSuchElementException when the queue is empty
+     */
+    int minIndex();
+
+    /**
+     * Remove the earliest event from the queue. The details of the removed event can still
+     * be read until another event is put at its index.
+     * @return the index of the earliest event
+     * @throws NoSuchElementException when the queue is empty
+     */
+    int remove();
+
+    /**
+     * Remove the event at the given index. The details of the removed event can still
+     * be read until another event is put at its index.
+     * @param i The index
+     * @throws IllegalArgumentException when the index is not in the queue
+     */
+    void delete(int i);
+
+    /**
+     * Returns the time of the event at the given index.
+     * @param i The index
+     * @return The time of the event
+     */
+    double time(int i);
+
+    /**
+     * Returns the type of the event at the given index.
+     * @param i The index
+     * @return The type of the event
+     */
+    int type(int i);
+
+    /**
+     * Returns the partner particle or the entered cell of the event at the given index.
+     * @param i The index
+     * @return The partner particle or the entered cell
+     */
+    int other(int i);
+
+    /**
+     * Returns the count of the particle at the given index when its event was predicted.
+     * @param i The index
+     * @return The count of the particle
+     */
+    int countA(int i);
+
+    /**
+     * Returns the count of the partner particle when the event at the given index was predicted.
+     * @param i The index
+     * @return The count of the partner particle
+     */
+    int countB(int i);
+}
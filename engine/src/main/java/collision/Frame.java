@@ -0,0 +1,116 @@
+/**
+ *  Purpose:        A snapshot of the particles at one redraw event: their positions, radii and
+ *                  colors and the simulation time. A Frame is filled by the simulation thread
+ *                  and then handed over to the thread that draws it, which only reads it.
+ *                  The arrays are reused from one snapshot to the next, so a Frame must not be
+ *                  kept after it is given back, see FrameBuffer.
+ */
+
+package collision;
+
+public class Frame {
+    private int size;  // The number of particles in the snapshot
+    private double time;  // The simulation time of the snapshot
+    private long number;  // The number of the snapshot, counted from 1
+    private double[] x, y;  // Coordinate
+    private double[] radius;  // Radius
+    private int[] color;  // The color as packed 0xRRGGBB
+
+    /**
+     * Create an empty frame.
+     */
+    public Frame() {
+        x = new double[0];
+        y = new double[0];
+        radius = new double[0];
+        color = new int[0];
+    }
+
+    /**
+     * Copy the particles into this frame, the arrays only grow when there are more particles
+     * than before. All the particles should already be moved to the given time.
+     * Only the thread that owns the frame at the moment may call it.
+     * @param particles The particles
+     * @param time The simulation time
+     * @param number The number of the snapshot
+     */
+    public void copy(ParticleStore particles, double time, long number) {
+        int n = particles.size();
+        if (x.length < n) {
+            x = new double[n];
+            y = new double[n];
+            radius = new double[n];
+            color = new int[n];
+        }
+
+        for (int i = 0; i < n; i++) {
+            x[i] = particles.x(i);
+            y[i] = particles.y(i);
+            radius[i] = particles.radius(i);
+            color[i] = particles.color(i);
+        }
+        this.size = n;
+        this.time = time;
+        this.number = number;
+    }
+
+    /**
+     * Returns the number of particles in the frame.
+     * @return The number of particles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the simulation time of the frame.
+     * @return The simulation time
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Returns the number of the frame, frames are counted from 1 in the order they were taken.
+     * @return The number of the frame
+     */
+    public long number() {
+        return number;
+    }
+
+    /**
+     * Returns the x-coordinate of a particle.
+     * @param i The particle
+     * @return The x-coordinate
+     */
+    public double x(int i) {
+        return x[i];
+    }
+
+    /**
+     * Returns the y-coordinate of a particle.
+     * @param i The particle
+     * @return The y-coordinate
+     */
+    public double y(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the radius of a particle.
+     * @param i The particle
+     * @return The radius
+     */
+    public double radius(int i) {
+        return radius[i];
+    }
+
+    /**
+     * Returns the color of a particle.
+     * @param i The particle
+     * @return The color as packed 0xRRGGBB
+     */
+    public int color(int i) {
+        return color[i];
+    }
+}
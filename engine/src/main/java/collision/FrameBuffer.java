@@ -0,0 +1,63 @@
+/**
+ *  Purpose:        A renderer that does not draw anything itself but publishes a Frame of the
+ *                  particles at every redraw event, so the simulation never waits for the display.
+ *                  Another thread takes the latest frame whenever it is ready to draw one.
+ *                  The frames are triple buffered: the simulation thread writes one, the drawing
+ *                  thread reads another and the third holds the latest published frame. Both
+ *                  sides swap their frame with the middle one in a single atomic step, so neither
+ *                  of them ever waits. A frame that is replaced before it was taken is dropped.
+ */
+
+package collision;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class FrameBuffer implements Renderer {
+    private static final int FRESH = 4;  // Set in middle when its frame was not taken yet
+
+    private final Frame[] frames = {new Frame(), new Frame(), new Frame()};
+    private final AtomicInteger middle = new AtomicInteger(1);  // The latest published frame and FRESH
+    private int back = 0;  // The frame the simulation thread writes, only that thread uses it
+    private int front = 2;  // The frame the drawing thread reads, only that thread uses it
+    private volatile long published;  // The number of frames published, only the simulation thread writes it
+    private volatile long dropped;  // The number of frames replaced before they were taken, same
+
+    @Override
+    public void render(ParticleStore particles, double time) {
+        frames[back].copy(particles, time, published + 1);
+        int last = middle.getAndSet(back | FRESH);
+        if ((last & FRESH) != 0) dropped++;
+        back = last & ~FRESH;
+        published++;
+    }
+
+    /**
+     * Take the latest published frame if it is newer than the one taken before. The frame
+     * stays valid until the next call, which may reuse it for a later snapshot.
+     * Called by the drawing thread only.
+     * @return The latest frame, or null if no frame was published since the last call
+     */
+    public Frame take() {
+        if ((middle.get() & FRESH) == 0)
+            return null;
+
+        front = middle.getAndSet(front) & ~FRESH;
+        return frames[front];
+    }
+
+    /**
+     * Returns the number of frames the simulation published so far.
+     * @return The number of frames
+     */
+    public long published() {
+        return published;
+    }
+
+    /**
+     * Returns the number of frames that were replaced by a later one before they were taken.
+     * @return The number of dropped frames
+     */
+    public long dropped() {
+        return dropped;
+    }
+}
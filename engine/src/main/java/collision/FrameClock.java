@@ -0,0 +1,166 @@
+/**
+ *  Purpose:        Decides when a simulation draws its frames from a frame budget instead of a
+ *                  fixed rate. A redraw event happens every interval of simulation time whatever
+ *                  the mode, so what happens at the redraw events (statistics, checkpoints) does
+ *                  not depend on the wall clock, and the clock tells at each of them whether the
+ *                  frame is drawn. There are 3 modes:
+ *                  - Unpaced (no frame rate): every frame is drawn and the simulation never
+ *                    waits, as it should headless.
+ *                  - Paced: one interval of simulation time takes one frame of wall time, the
+ *                    simulation waits for whatever is left of the budget after each frame. When
+ *                    the physics falls behind, the frames that are already a whole frame late
+ *                    are not drawn, up to MAX_SKIP in a row, so the simulation catches up.
+ *                  - Max speed: the simulation never waits, and a frame is only drawn once the
+ *                    budget of the previous one has passed, as often as the display can show
+ *                    them. The other redraw events only cost a look at the clock.
+ *                  A clock keeps the state of one simulation, so it should not be shared.
+ */
+
+package collision;
+
+public class FrameClock {
+    public static final double DEFAULT_INTERVAL = 2;  // Default simulation time per frame
+    public static final int DEFAULT_FPS = 25;  // Default number of frames per second when paced
+    static final int MAX_SKIP = 5;  // The number of frames skipped in a row at most before giving up catching up
+
+    private final double interval;  // The simulation time between 2 redraw events
+    private final long budget;  // The wall time of one frame in nanoseconds, 0 when unpaced
+    private final boolean maxSpeed;  // Whether the simulation never waits for the display
+    private long deadline;  // The wall time the next frame is due at
+    private long drawn, skipped;  // The number of frames drawn and skipped so far
+    private int skippedInRow;  // The number of frames skipped since the last one drawn
+
+    /**
+     * Create an unpaced clock with a redraw event every DEFAULT_INTERVAL of simulation time.
+     */
+    public FrameClock() {
+        this(DEFAULT_INTERVAL, 0, false);
+    }
+
+    /**
+     * Create a clock with the given frame budget.
+     * @param interval The simulation time between 2 redraw events
+     * @param fps The number of frames per second, 0 to draw every frame without waiting
+     * @param maxSpeed true to never wait and only draw the frames the frame rate allows
+     * @throws IllegalArgumentException when the interval is not positive, the frame rate is
+     *                                  negative, or max speed has no frame rate
+     */
+    public FrameClock(double interval, double fps, boolean maxSpeed) {
+        if (!(interval > 0) || Double.isInfinite(interval))
+            throw new IllegalArgumentException("Frame interval must be positive");
+        if (!(fps >= 0))
+            throw new IllegalArgumentException("Frame rate cannot be negative");
+        if (maxSpeed && fps == 0)
+            throw new IllegalArgumentException("Max speed needs a frame rate");
+
+        this.interval = interval;
+        this.budget = fps == 0 ? 0 : Math.round(1e9 / fps);
+        this.maxSpeed = maxSpeed;
+    }
+
+    /**
+     * Create the clock asked for on the command line: --frame-time=<t> sets the simulation time
+     * per frame, --fps=<n> the frame rate and --max-speed draws only as often as the frame rate
+     * allows without ever waiting.
+     * @param args The command line arguments
+     * @param paced true to wait for each frame when max speed is not asked for, false to draw
+     *              every frame without waiting then
+     * @return The clock
+     */
+    public static FrameClock fromOptions(String[] args, boolean paced) {
+        boolean maxSpeed = Options.has(args, "--max-speed");
+        double fps = Double.parseDouble(Options.get(args, "fps", String.valueOf(DEFAULT_FPS)));
+        return new FrameClock(Double.parseDouble(Options.get(args, "frame-time", String.valueOf(DEFAULT_INTERVAL))),
+            paced || maxSpeed ? fps : 0, maxSpeed);
+    }
+
+    /**
+     * Returns the simulation time between 2 redraw events.
+     * @return The frame interval
+     */
+    public double interval() {
+        return interval;
+    }
+
+    /**
+     * Returns the number of frames drawn so far.
+     * @return The number of frames drawn
+     */
+    public long drawn() {
+        return drawn;
+    }
+
+    /**
+     * Returns the number of frames skipped so far, either late or over the frame rate.
+     * @return The number of frames skipped
+     */
+    public long skipped() {
+        return skipped;
+    }
+
+    /**
+     * Start the wall clock, called when the simulation starts. The first frame is due at once.
+     */
+    void start() {
+        deadline = System.nanoTime();
+    }
+
+    /**
+     * Tell whether the frame of the current redraw event is drawn.
+     * @return true to draw the frame, false to skip it
+     */
+    boolean due() {
+        if (budget == 0) {
+            drawn++;
+            return true;
+        }
+
+        long now = System.nanoTime();
+        if (maxSpeed) {
+            if (now - deadline < 0) {
+                skipped++;
+                return false;
+            }
+            deadline = now + budget;
+        }
+        else if (now - deadline >= budget) {
+            // The frame is already a whole frame late
+            if (skippedInRow < MAX_SKIP) {
+                skippedInRow++;
+                skipped++;
+                return false;
+            }
+            deadline = now;  // The physics cannot keep up, so the frame rate drops instead
+        }
+        skippedInRow = 0;
+        drawn++;
+        return true;
+    }
+
+    /**
+     * Finish the frame of the current redraw event, drawn or not. A paced clock waits until
+     * the next frame is due.
+     * @return The simulation time until the next redraw event, always the interval
+     */
+    double next() {
+        if (budget > 0 && !maxSpeed) {
+            deadline += budget;
+            long wait = deadline - System.nanoTime();
+            if (wait > 0) sleep(wait);
+        }
+        return interval;
+    }
+
+    /**
+     * Wait for the given amount of wall time.
+     * @param nanos The time to wait in nanoseconds
+     */
+    private static void sleep(long nanos) {
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
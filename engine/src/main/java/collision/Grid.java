@@ -0,0 +1,214 @@
+/**
+ *  Purpose:        A uniform grid over the canvas used as the broad phase of the collision
+ *                  prediction. The canvas is split into square cells that are at least one
+ *                  particle diameter wide, so a particle can only hit the particles in its own
+ *                  cell or in the 8 cells around it.
+ *                  The particles of each cell are kept in a linked list stored in int arrays,
+ *                  so moving a particle to another cell takes O(1) time.
+ */
+
+package collision;
+
+import java.util.Arrays;
+
+public class Grid {
+    public static final int NONE = -1;  // Marks the end of a list or a missing cell
+
+    private double cellSize;  // The width and height of a cell
+    private int cols, rows;  // The number of cells in each direction
+    private int[] head;  // The first particle of each cell
+    private int[] next, prev;  // The particles after and before each particle in its cell
+    private int[] cell;  // The cell of each particle
+
+    /**
+     * Create an empty grid that covers the given canvas.
+     * @param width The width of the canvas
+     * @param height The height of the canvas
+     * @param cellSize The width and height of a cell
+     * @param capacity The number of particles the grid can hold
+     * @throws IllegalArgumentException when the size of the canvas or the cells is not positive
+     */
+    public Grid(int width, int height, double cellSize, int capacity) {
+        if (width <= 0 || height <= 0)
+            throw new IllegalArgumentException("Invalid width or height");
+        if (cellSize <= 0)
+            throw new IllegalArgumentException("Cell size must be positive");
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative");
+
+        this.cellSize = cellSize;
+        cols = Math.max(1, (int) (width / cellSize));
+        rows = Math.max(1, (int) (height / cellSize));
+
+        head = new int[cols * rows];
+        next = new int[capacity];
+        prev = new int[capacity];
+        cell = new int[capacity];
+        Arrays.fill(head, NONE);
+        Arrays.fill(cell, NONE);
+    }
+
+    /**
+     * Returns the number of columns in the grid.
+     * @return The number of columns
+     */
+    public int cols() {
+        return cols;
+    }
+
+    /**
+     * Returns the number of rows in the grid.
+     * @return The number of rows
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the column of the given cell.
+     * @param c The cell
+     * @return The column of the cell
+     */
+    public int col(int c) {
+        return c % cols;
+    }
+
+    /**
+     * Returns the row of the given cell.
+     * @param c The cell
+     * @return The row of the cell
+     */
+    public int row(int c) {
+        return c / cols;
+    }
+
+    /**
+     * Returns the cell at the given column and row or NONE if it is outside of the grid.
+     * @param col The column
+     * @param row The row
+     * @return The cell at the given position
+     */
+    public int cellAt(int col, int row) {
+        if (col < 0 || col >= cols || row < 0 || row >= rows)
+            return NONE;
+
+        return row * cols + col;
+    }
+
+    /**
+     * Returns the cell that contains the given point. Points outside of the canvas
+     * belong to the nearest cell on the border.
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The cell containing the point
+     */
+    public int cellOf(double x, double y) {
+        int col = Math.min(cols - 1, Math.max(0, (int) Math.floor(x / cellSize)));
+        int row = Math.min(rows - 1, Math.max(0, (int) Math.floor(y / cellSize)));
+        return row * cols + col;
+    }
+
+    /**
+     * Returns the cell of the given particle.
+     * @param i The particle
+     * @return The cell the particle belongs to, or NONE if it is not in the grid
+     */
+    public int cell(int i) {
+        return cell[i];
+    }
+
+    /**
+     * Returns the first particle in the given cell.
+     * @param c The cell
+     * @return The first particle or NONE if the cell is empty
+     */
+    public int first(int c) {
+        return head[c];
+    }
+
+    /**
+     * Returns the particle after the given one in the same cell.
+     * @param i The particle
+     * @return The next particle or NONE if it is the last one
+     */
+    public int next(int i) {
+        return next[i];
+    }
+
+    /**
+     * Put a particle into the given cell.
+     * @param i The particle
+     * @param c The cell
+     */
+    public void insert(int i, int c) {
+        cell[i] = c;
+        prev[i] = NONE;
+        next[i] = head[c];
+        if (head[c] != NONE)
+            prev[head[c]] = i;
+        head[c] = i;
+    }
+
+    /**
+     * Take a particle out of its cell.
+     * @param i The particle
+     */
+    public void remove(int i) {
+        int c = cell[i];
+        if (c == NONE) return;
+
+        if (prev[i] != NONE) next[prev[i]] = next[i];
+        else head[c] = next[i];
+        if (next[i] != NONE) prev[next[i]] = prev[i];
+
+        cell[i] = NONE;
+    }
+
+    /**
+     * Move a particle to another cell.
+     * @param i The particle
+     * @param c The new cell
+     */
+    public void move(int i, int c) {
+        remove(i);
+        insert(i, c);
+    }
+
+    /**
+     * Calculate the amount of time for a point moving from inside the given cell to cross
+     * its left or right border. The borders of the grid itself are never crossed.
+     * @param c The cell
+     * @param x The x-coordinate of the point
+     * @param vx The horizontal velocity of the point
+     * @return The amount of time until the point leaves the cell horizontally
+     */
+    public double timeToCrossVertical(int c, double x, double vx) {
+        int col = col(c);
+        double time = Double.POSITIVE_INFINITY;
+        if (vx > 0 && col < cols - 1)
+            time = ((col + 1) * cellSize - x) / vx;
+        else if (vx < 0 && col > 0)
+            time = (col * cellSize - x) / vx;
+
+        return Math.max(0.0, time);
+    }
+
+    /**
+     * Calculate the amount of time for a point moving from inside the given cell to cross
+     * its top or bottom border. The borders of the grid itself are never crossed.
+     * @param c The cell
+     * @param y The y-coordinate of the point
+     * @param vy The vertical velocity of the point
+     * @return The amount of time until the point leaves the cell vertically
+     */
+    public double timeToCrossHorizontal(int c, double y, double vy) {
+        int row = row(c);
+        double time = Double.POSITIVE_INFINITY;
+        if (vy > 0 && row < rows - 1)
+            time = ((row + 1) * cellSize - y) / vy;
+        else if (vy < 0 && row > 0)
+            time = (row * cellSize - y) / vy;
+
+        return Math.max(0.0, time);
+    }
+}
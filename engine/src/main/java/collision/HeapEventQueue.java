@@ -0,0 +1,246 @@
+/**
+ *  Purpose:        The binary heap event queue. It is an indexed minimum priority queue,
+ *                  specialised for the simulation events so that it never allocates after it
+ *                  is created: the times are kept in a double[] heap next to
+ *                  the heap of indices, and the rest of each event (type, partner and counts)
+ *                  is kept in int arrays at the index of the event.
+ *                  Each index holds at most one event, all the operations take O(logN) time.
+ */
+
+package collision;
+
+import java.lang.management.ManagementFactory;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+public class HeapEventQueue implements EventQueue {
+    private int count;  // The current number of events in the queue
+    private int[] heap;  // The heap of indices, heap[1..count] is used
+    private double[] heapTime;  // The time of the event at each heap position
+    private int[] pos;  // The heap position of each index, 0 if it is not in the queue
+
+    // The details of the event at each index
+    private double[] time;
+    private int[] type;
+    private int[] other;
+    private int[] countA, countB;
+
+    /**
+     * Initialize an empty queue that can hold the indices from 0 to capacity - 1
+     * @param capacity The number of indices
+     * @throws IllegalArgumentException when the capacity is negative
+     */
+    public HeapEventQueue(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative");
+
+        count = 0;
+        heap = new int[capacity + 1];
+        heapTime = new double[capacity + 1];
+        pos = new int[capacity];
+        time = new double[capacity];
+        type = new int[capacity];
+        other = new int[capacity];
+        countA = new int[capacity];
+        countB = new int[capacity];
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    @Override
+    public boolean contains(int i) {
+        return pos[i] != 0;
+    }
+
+    @Override
+    public void set(int i, double time, int type, int other, int countA, int countB) {
+        this.time[i] = time;
+        this.type[i] = type;
+        this.other[i] = other;
+        this.countA[i] = countA;
+        this.countB[i] = countB;
+
+        if (pos[i] == 0) {
+            count++;
+            heap[count] = i;
+            heapTime[count] = time;
+            pos[i] = count;
+            swim(count);
+        }
+        else {
+            int k = pos[i];
+            double old = heapTime[k];
+            heapTime[k] = time;
+            if (time < old) swim(k);
+            else sink(k);
+        }
+    }
+
+    @Override
+    public int minIndex() {
+        if (count == 0)
+            throw new NoSuchElementException("Queue is empty");
+
+        return heap[1];
+    }
+
+    @Override
+    public int remove() {
+        int min = minIndex();
+        delete(min);
+        return min;
+    }
+
+    @Override
+    public void delete(int i) {
+        if (!contains(i))
+            throw new IllegalArgumentException("Index is not in the queue");
+
+        int k = pos[i];
+        swap(k, count);
+        count--;
+        if (k <= count) {
+            swim(k);
+            sink(k);
+        }
+        pos[i] = 0;
+    }
+
+    @Override
+    public double time(int i) {
+        return time[i];
+    }
+
+    @Override
+    public int type(int i) {
+        return type[i];
+    }
+
+    @Override
+    public int other(int i) {
+        return other[i];
+    }
+
+    @Override
+    public int countA(int i) {
+        return countA[i];
+    }
+
+    @Override
+    public int countB(int i) {
+        return countB[i];
+    }
+
+    /**
+     * Bring an event up the heap until it stays in the correct position
+     * @param index The starting position in the heap
+     */
+    private void swim(int index) {
+        int k = index;
+        while (k > 1 && heapTime[k] < heapTime[k / 2]) {
+            swap(k, k / 2);
+            k = k / 2;
+        }
+    }
+
+    /**
+     * Bring an event down the heap until it stays in the correct position
+     * @param index The starting position in the heap
+     */
+    private void sink(int index) {
+        int k = index;
+        while (2 * k <= count) {
+            int j = 2 * k;
+            if (j < count && heapTime[j + 1] < heapTime[j])
+                j++;
+
+            if (heapTime[j] < heapTime[k]) {
+                swap(j, k);
+                k = j;
+            }
+            else break;
+        }
+    }
+
+    /**
+     * Swap 2 events in the heap at the given positions
+     * @param j the position of the first event
+     * @param k the position of the second event
+     */
+    private void swap(int j, int k) {
+        int temp = heap[j];
+        heap[j] = heap[k];
+        heap[k] = temp;
+
+        double tempTime = heapTime[j];
+        heapTime[j] = heapTime[k];
+        heapTime[k] = tempTime;
+
+        pos[heap[j]] = j;
+        pos[heap[k]] = k;
+    }
+
+    /**
+     * An event object of the same size as the events the simulator used to allocate,
+     * only used by the test client to compare against MinPQ.
+     */
+    private static class Item implements Comparable<Item> {
+        private int type, a, b, cell, countA, countB;
+        private double time;
+
+        Item(double time, int a) {
+            this.time = time;
+            this.a = a;
+        }
+
+        @Override
+        public int compareTo(Item other) {
+            return Double.compare(this.time, other.time);
+        }
+    }
+
+    // Test client, compares the memory allocated per event with MinPQ
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+        com.sun.management.ThreadMXBean bean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        Random rand = new Random(42);
+
+        // Each round removes the earliest event and predicts a new one for its index
+        HeapEventQueue queue = new HeapEventQueue(n);
+        for (int i = 0; i < n; i++)
+            queue.set(i, rand.nextDouble(), 0, -1, 0, 0);
+
+        long before = bean.getThreadAllocatedBytes(thread);
+        for (int r = 0; r < rounds; r++) {
+            int i = queue.minIndex();
+            double t = queue.time(i);
+            queue.set(i, t + rand.nextDouble(), 0, -1, 0, 0);
+        }
+        long queueBytes = bean.getThreadAllocatedBytes(thread) - before;
+
+        MinPQ<Item> pq = new MinPQ<>();
+        for (int i = 0; i < n; i++)
+            pq.insert(new Item(rand.nextDouble(), i));
+
+        before = bean.getThreadAllocatedBytes(thread);
+        for (int r = 0; r < rounds; r++) {
+            Item item = pq.remove();
+            pq.insert(new Item(item.time + rand.nextDouble(), item.a));
+        }
+        long pqBytes = bean.getThreadAllocatedBytes(thread) - before;
+
+        System.out.printf("HeapEventQueue: %.2f bytes per event%n", (double) queueBytes / rounds);
+        System.out.printf("MinPQ<Event>: %.2f bytes per event%n", (double) pqBytes / rounds);
+    }
+}
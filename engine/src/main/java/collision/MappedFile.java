@@ -0,0 +1,146 @@
+/**
+ *  Purpose:        Reads or writes a file from start to end through memory-mapped windows of
+ *                  at most WINDOW bytes. A single MappedByteBuffer cannot be larger than
+ *                  Integer.MAX_VALUE bytes, so the large files of the checkpoints and the binary
+ *                  scenarios are mapped one window after another instead, and the next window
+ *                  starts wherever the previous one stopped. Whole arrays are still copied in
+ *                  bulk, split at the end of each window.
+ */
+
+package collision;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+class MappedFile {
+    static final int WINDOW = 1 << 30;  // The largest number of bytes mapped at once
+
+    private final FileChannel channel;  // The file
+    private final FileChannel.MapMode mode;  // READ_ONLY to read or READ_WRITE to write
+    private final long size;  // The number of bytes read or written in total
+    private final int window;  // The number of bytes mapped at once
+    private MappedByteBuffer buf;  // The current window, null before the first one
+    private long start;  // The position of the current window in the file
+
+    /**
+     * Read or write the given number of bytes from the start of a file.
+     * @param channel The file, open for reading or for reading and writing
+     * @param mode READ_ONLY to read or READ_WRITE to write
+     * @param size The number of bytes, a file that is written grows to this size
+     */
+    MappedFile(FileChannel channel, FileChannel.MapMode mode, long size) {
+        this(channel, mode, size, WINDOW);
+    }
+
+    /**
+     * Read or write the given number of bytes with windows of the given size, which must
+     * hold the largest group of values asked for with buffer(). A small window lets the
+     * tests cross many windows with a small file.
+     * @param channel The file, open for reading or for reading and writing
+     * @param mode READ_ONLY to read or READ_WRITE to write
+     * @param size The number of bytes, a file that is written grows to this size
+     * @param window The number of bytes mapped at once
+     */
+    MappedFile(FileChannel channel, FileChannel.MapMode mode, long size, int window) {
+        this.channel = channel;
+        this.mode = mode;
+        this.size = size;
+        this.window = window;
+    }
+
+    /**
+     * Returns a buffer with at least the given number of bytes left before the end of its
+     * window, for values that are read or written one at a time. The caller moves the position
+     * of the buffer past what it reads or writes.
+     * @param bytes The number of bytes needed, at most the size of a window
+     * @return The buffer at the current position
+     * @throws IOException when the file cannot be mapped or is shorter than that
+     */
+    ByteBuffer buffer(int bytes) throws IOException {
+        if (buf == null || buf.remaining() < bytes) {
+            map();
+            if (buf.remaining() < bytes)
+                throw new IOException("Unexpected end of the mapped file");
+        }
+        return buf;
+    }
+
+    /**
+     * Write the first n values of an array.
+     * @param a The array
+     * @param n The number of values
+     * @throws IOException when the file cannot be mapped
+     */
+    void put(double[] a, int n) throws IOException {
+        for (int done = 0; done < n; ) {
+            int k = Math.min(n - done, buffer(Double.BYTES).remaining() / Double.BYTES);
+            buf.asDoubleBuffer().put(a, done, k);
+            buf.position(buf.position() + k * Double.BYTES);
+            done += k;
+        }
+    }
+
+    /**
+     * Write the first n values of an array.
+     * @param a The array
+     * @param n The number of values
+     * @throws IOException when the file cannot be mapped
+     */
+    void put(int[] a, int n) throws IOException {
+        for (int done = 0; done < n; ) {
+            int k = Math.min(n - done, buffer(Integer.BYTES).remaining() / Integer.BYTES);
+            buf.asIntBuffer().put(a, done, k);
+            buf.position(buf.position() + k * Integer.BYTES);
+            done += k;
+        }
+    }
+
+    /**
+     * Fill an array with the next values.
+     * @param a The array
+     * @throws IOException when the file cannot be mapped or is too short
+     */
+    void get(double[] a) throws IOException {
+        for (int done = 0; done < a.length; ) {
+            int k = Math.min(a.length - done, buffer(Double.BYTES).remaining() / Double.BYTES);
+            buf.asDoubleBuffer().get(a, done, k);
+            buf.position(buf.position() + k * Double.BYTES);
+            done += k;
+        }
+    }
+
+    /**
+     * Fill an array with the next values.
+     * @param a The array
+     * @throws IOException when the file cannot be mapped or is too short
+     */
+    void get(int[] a) throws IOException {
+        for (int done = 0; done < a.length; ) {
+            int k = Math.min(a.length - done, buffer(Integer.BYTES).remaining() / Integer.BYTES);
+            buf.asIntBuffer().get(a, done, k);
+            buf.position(buf.position() + k * Integer.BYTES);
+            done += k;
+        }
+    }
+
+    /**
+     * Write the last window to the storage device, when the file is written.
+     */
+    void force() {
+        if (buf != null && mode == FileChannel.MapMode.READ_WRITE)
+            buf.force();
+    }
+
+    /**
+     * Map the next window, from the current position to at most the size of a window further.
+     * @throws IOException when the file cannot be mapped
+     */
+    private void map() throws IOException {
+        force();
+        if (buf != null)
+            start += buf.position();
+        buf = channel.map(mode, start, Math.min(window, size - start));
+    }
+}
@@ -1,6 +1,6 @@
 /**
  *  Author:         Khoa Nam Pham
- *  Date modified:  02/03/2020
+ *  Date modified:  16/10/2026
  *  Purpose:        Implementation of the Minimum Priority Queue Abstract Data Type.
  *                  This class provides useful method to retrieve the minimum item in 
  *                  a collection of objects with O(logN) time complexity.
@@ -8,6 +8,8 @@
  *                  can grow or shrink. 
  */
 
+package collision;
+
 import java.util.Random;
 
 public class MinPQ<Key extends Comparable<Key>> {
@@ -0,0 +1,11 @@
+/**
+ *  Purpose:        A renderer that draws nothing. Used to run the simulation headless,
+ *                  this class never touches Draw so neither Swing nor AWT gets loaded.
+ */
+
+package collision;
+
+public class NullRenderer implements Renderer {
+    @Override
+    public void render(ParticleStore particles, double time) {}
+}
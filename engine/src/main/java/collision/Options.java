@@ -0,0 +1,42 @@
+/**
+ *  Purpose:        Reads the optional command line arguments. The number of particles and the
+ *                  time limit are always the first 2 arguments, anything after them is either
+ *                  a flag like --headless or an option written as --name=value.
+ */
+
+package collision;
+
+public class Options {
+    // Only the static methods are used
+    private Options() {}
+
+    /**
+     * Returns the value of an option, or the default value when it is not given.
+     * @param args The command line arguments
+     * @param name The name of the option, without the leading dashes
+     * @param def The value used when the option is not given
+     * @return The value of the option
+     */
+    public static String get(String[] args, String name, String def) {
+        String prefix = "--" + name + "=";
+        for (String arg : args)
+            if (arg.startsWith(prefix))
+                return arg.substring(prefix.length());
+
+        return def;
+    }
+
+    /**
+     * Checks if a flag is given.
+     * @param args The command line arguments
+     * @param flag The flag
+     * @return true if the flag is one of the arguments or false otherwise
+     */
+    public static boolean has(String[] args, String flag) {
+        for (String arg : args)
+            if (arg.equals(flag))
+                return true;
+
+        return false;
+    }
+}
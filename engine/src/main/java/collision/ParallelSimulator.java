@@ -0,0 +1,648 @@
+/**
+ *  Purpose:        An event-driven simulator that uses more than one core and still processes
+ *                  the same events as the Simulator, up to rounding. The columns of the grid are split into
+ *                  vertical regions, each with its own event queue, and the regions run their
+ *                  events on a ForkJoinPool in optimistic windows:
+ *                  - Each region processes its events in time order until the end of the window,
+ *                    but only the interior ones, where every particle involved is in a column of
+ *                    the region that does not border another region. Such an event can only
+ *                    touch the particles of its own region, so the regions need no locks.
+ *                    A region stops at its first boundary event instead.
+ *                  - If a region stopped before the end of the window, a boundary event may have
+ *                    changed what happened after it in any region. Every region then rolls back
+ *                    the events it processed from that time on, using the states it saved before
+ *                    each event, and the boundary events are processed one by one.
+ *                  A rolled back particle gets a new count, so the events predicted from the
+ *                  discarded states fail isValid() like any other invalidated event, and it is
+ *                  predicted again from the time of the rollback. Its position then differs from
+ *                  the serial one in the last bits, and the motion is chaotic, so a long run
+ *                  drifts away from the Simulator after a few collisions per particle while
+ *                  keeping the same physics. The window doubles after a window without a rollback and
+ *                  halves after one with a rollback.
+ *                  Each region needs at least 3 columns, so the number of regions is limited
+ *                  by the width of the canvas.
+ */
+
+package collision;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+public class ParallelSimulator {
+    private static final int PARTICLE = Simulator.PARTICLE, VERTICAL_WALL = Simulator.VERTICAL_WALL,
+        HORIZONTAL_WALL = Simulator.HORIZONTAL_WALL, CELL = Simulator.CELL;
+    private static final int NONE = Simulator.NONE;
+    private static final int MIN_COLUMNS = 3;  // A border column on each side and one inside
+    private static final double MIN_WINDOW = 1e-3;  // The window never gets shorter than this
+    private static final double MAX_WINDOW = FrameClock.DEFAULT_INTERVAL;  // Nor longer than a default frame
+
+    private ParticleStore particles;  // All the particles in the simulation
+    private Grid grid;  // The broad phase, shared by the regions
+    private Region[] regions;  // The regions from left to right
+    private int[] regionOf;  // The region of each column
+    private ForkJoinPool pool;  // Runs the regions
+    private double time;  // The time that all the regions reached
+    private double window;  // The length of the next optimistic window
+    private double nextRedraw;  // The time of the next redraw
+    private long rollbacks;  // The number of windows that had to be rolled back
+    private long undone;  // The number of collisions undone by the rollbacks
+    private int frameWidth = Simulator.DEFAULT_SIZE, frameHeight = Simulator.DEFAULT_SIZE;  // Canvas size
+    private Renderer renderer;  // Shows the particles at every redraw
+    private FrameClock frames = new FrameClock();  // When the redraws happen and which frames are drawn
+
+    // The particles restored by a rollback, so that each of them is predicted again only once
+    private boolean[] restored;
+    private int[] restoredList;
+    private int restoredCount;
+
+    /**
+     * Create a parallel simulator with the given number of particles, all generated from the
+     * given random number generator in the same way as the Simulator does.
+     * @param pNum The number of particles
+     * @param renderer The renderer used at every redraw, use NullRenderer to run headless
+     * @param rand The random number generator used to create the particles
+     * @param scheduler The kind of event queue used by each region
+     * @param pool The pool that runs the regions, its parallelism decides the number of regions
+     * @throws IllegalArgumentException when any of the arguments is null
+     */
+    public ParallelSimulator(int pNum, Renderer renderer, Random rand, Scheduler scheduler, ForkJoinPool pool) {
+        this(RandomScenario.generate(pNum, rand), renderer, scheduler, pool);
+    }
+
+    /**
+     * Create a parallel simulator with the given particles, for example those of a Scenario.
+     * @param particles The particles, the simulator works on the store itself
+     * @param renderer The renderer used at every redraw, use NullRenderer to run headless
+     * @param scheduler The kind of event queue used by each region
+     * @param pool The pool that runs the regions, its parallelism decides the number of regions
+     * @throws IllegalArgumentException when any of the arguments is null
+     */
+    public ParallelSimulator(ParticleStore particles, Renderer renderer, Scheduler scheduler, ForkJoinPool pool) {
+        if (particles == null)
+            throw new IllegalArgumentException("Particles cannot be null");
+        if (renderer == null)
+            throw new IllegalArgumentException("Renderer cannot be null");
+        if (scheduler == null)
+            throw new IllegalArgumentException("Scheduler cannot be null");
+        if (pool == null)
+            throw new IllegalArgumentException("Pool cannot be null");
+
+        int pNum = particles.size();
+        this.particles = particles;
+
+        // Each cell must be at least as wide as the largest particle
+        double maxRadius = 0;
+        for (int i = 0; i < pNum; i++)
+            maxRadius = Math.max(maxRadius, particles.radius(i));
+
+        grid = new Grid(frameWidth, frameHeight, 2 * maxRadius + Simulator.CELL_MARGIN, pNum);
+        for (int i = 0; i < pNum; i++)
+            grid.insert(i, grid.cellOf(particles.x(i), particles.y(i)));
+
+        // Split the columns as evenly as possible
+        int cols = grid.cols();
+        int count = Math.max(1, Math.min(pool.getParallelism(), cols / MIN_COLUMNS));
+        regions = new Region[count];
+        regionOf = new int[cols];
+        for (int r = 0; r < count; r++) {
+            int first = r * cols / count, last = (r + 1) * cols / count - 1;
+            regions[r] = new Region(first, last, scheduler.create(pNum));
+            for (int col = first; col <= last; col++)
+                regionOf[col] = r;
+        }
+
+        restored = new boolean[pNum];
+        restoredList = new int[pNum];
+        restoredCount = 0;
+
+        this.renderer = renderer;
+        this.pool = pool;
+        time = 0.0;
+        window = MIN_WINDOW;
+        rollbacks = 0;
+        undone = 0;
+    }
+
+    /**
+     * Returns the number of physical events processed so far, the collisions with another
+     * particle or a wall, like in the Simulator.
+     * @return The number of events processed
+     */
+    public long events() {
+        long events = 0;
+        for (Region region : regions)
+            events += region.events;
+        return events;
+    }
+
+    /**
+     * Returns the number of regions the canvas is split into.
+     * @return The number of regions
+     */
+    public int regions() {
+        return regions.length;
+    }
+
+    /**
+     * Returns the number of windows that had to be rolled back so far.
+     * @return The number of rollbacks
+     */
+    public long rollbacks() {
+        return rollbacks;
+    }
+
+    /**
+     * Returns the number of collisions undone by the rollbacks so far.
+     * @return The number of undone events
+     */
+    public long undone() {
+        return undone;
+    }
+
+    /**
+     * Schedule the redraws with the given clock from now on, see Simulator.setFrameClock().
+     * @param frames The frame clock, it should not be shared with another simulation
+     * @throws IllegalArgumentException when the clock is null
+     */
+    public void setFrameClock(FrameClock frames) {
+        if (frames == null)
+            throw new IllegalArgumentException("Frame clock cannot be null");
+
+        this.frames = frames;
+    }
+
+    /**
+     * Starts the simulation with the given time limit
+     * @param limit The time limit for the simulation, simulation will stop after this amount of time.
+     */
+    public void simulate(double limit) {
+        // Pre-fill the queues with the first event of every particle
+        for (int i = 0; i < particles.size(); i++)
+            regions[0].predict(i, time, limit);
+        nextRedraw = time;  // Draw the particles first
+        frames.start();
+
+        List<Callable<Void>> tasks = new ArrayList<>(Arrays.asList(regions));
+        while (true) {
+            double next = earliest();
+            if (nextRedraw <= next && nextRedraw < limit) {
+                redraw(limit);
+                continue;
+            }
+            if (next == Double.POSITIVE_INFINITY) break;
+
+            // Run the regions up to the end of the window
+            double end = Math.min(nextRedraw, time + window);
+            for (Region region : regions) {
+                region.time = time;
+                region.end = end;
+                region.limit = limit;
+            }
+            invokeAll(tasks);
+
+            double stop = end;
+            for (Region region : regions)
+                stop = Math.min(stop, region.stop);
+
+            if (stop < end) {
+                rollback(stop, limit);
+                serial(limit);
+                window = Math.max(MIN_WINDOW, window / 2);
+            }
+            else {
+                time = end;
+                window = Math.min(MAX_WINDOW, window * 2);
+            }
+        }
+    }
+
+    /**
+     * Returns the time of the earliest event in all the regions.
+     * @return The time of the earliest event or infinity if there is none
+     */
+    private double earliest() {
+        Region region = earliestRegion();
+        return region == null ? Double.POSITIVE_INFINITY : region.pq.time(region.pq.minIndex());
+    }
+
+    /**
+     * Returns the region with the earliest event.
+     * @return The region or null if all the queues are empty
+     */
+    private Region earliestRegion() {
+        Region earliest = null;
+        for (Region region : regions)
+            if (!region.pq.isEmpty() && (earliest == null
+                    || region.pq.time(region.pq.minIndex()) < earliest.pq.time(earliest.pq.minIndex())))
+                earliest = region;
+        return earliest;
+    }
+
+    /**
+     * Run all the regions on the pool and wait for them to finish.
+     * @param tasks The regions
+     * @throws IllegalStateException when a region failed
+     */
+    private void invokeAll(List<Callable<Void>> tasks) {
+        try {
+            for (Future<Void> future : pool.invokeAll(tasks))
+                future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the regions", e);
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("A region failed", e.getCause());
+        }
+    }
+
+    /**
+     * Undo every event that the regions processed at or after the given time, then predict
+     * the events of the restored particles again.
+     * @param to The time to roll back to
+     * @param limit The simulation time limit
+     */
+    private void rollback(double to, double limit) {
+        rollbacks++;
+        for (Region region : regions)
+            region.rollback(to);
+
+        time = to;
+        for (int k = 0; k < restoredCount; k++) {
+            int i = restoredList[k];
+            restored[i] = false;
+            particles.moveTo(i, time);
+            regions[0].predict(i, time, limit);
+        }
+        restoredCount = 0;
+    }
+
+    /**
+     * Process the earliest events one by one, across the regions, until the earliest event
+     * is an interior one again. At least one event is processed, so the simulation always
+     * moves past the boundary event that stopped the window.
+     * @param limit The simulation time limit
+     */
+    private void serial(double limit) {
+        for (boolean first = true; ; first = false) {
+            Region region = earliestRegion();
+            if (region == null) return;
+
+            int a = region.pq.minIndex();
+            if (region.pq.time(a) >= nextRedraw) return;
+            if (!first && !region.isBoundaryEvent(a)) return;
+
+            region.pq.delete(a);
+            region.time = time;
+            region.process(a, limit, false);
+            time = region.time;
+        }
+    }
+
+    /**
+     * Draw all the particles, unless the frame clock skips this frame, and schedule the next redraw
+     * @param limit The simulation time limit
+     */
+    private void redraw(double limit) {
+        time = nextRedraw;
+        if (frames.due()) {
+            for (int i = 0; i < particles.size(); i++)
+                particles.moveTo(i, time);
+
+            renderer.render(particles, time);
+        }
+
+        double next = time + frames.next();
+        nextRedraw = next < limit ? next : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Returns the region that owns the given particle, the one with the column of its cell.
+     * The event of a particle is always kept in the queue of its region.
+     * @param i The particle
+     * @return The region of the particle
+     */
+    private Region owner(int i) {
+        return regions[regionOf[grid.col(grid.cell(i))]];
+    }
+
+    /**
+     * A vertical strip of columns with its own event queue. Besides the queue, it keeps the
+     * state of every particle before each event it processed in the current window, so that
+     * the window can be rolled back.
+     */
+    private class Region implements Callable<Void> {
+        private final int first, last;  // The columns of the region
+        private final EventQueue pq;  // The next event of each particle in the region
+        private double time;  // The time of the last event processed by the region
+        private double end;  // The end of the current window
+        private double limit;  // The simulation time limit
+        private double stop;  // The time of the boundary event that stopped the window, or infinity
+        private long events;  // The number of collisions processed by the region
+
+        // The earliest event found so far while predicting the events of a particle
+        private double bestTime;
+        private int bestType, bestOther;
+
+        // The log of the current window, one entry per particle involved in each event
+        private int logSize;
+        private double[] logTime;  // The time of the event
+        private int[] logParticle;  // The particle
+        private double[] logX, logY, logVx, logVy, logT;  // The state of the particle before the event
+        private int[] logCell;  // The cell of the particle before the event
+        private boolean[] logCounted;  // Whether the entry counted a collision
+
+        Region(int first, int last, EventQueue pq) {
+            this.first = first;
+            this.last = last;
+            this.pq = pq;
+            events = 0;
+
+            int capacity = 64;
+            logTime = new double[capacity];
+            logParticle = new int[capacity];
+            logX = new double[capacity];
+            logY = new double[capacity];
+            logVx = new double[capacity];
+            logVy = new double[capacity];
+            logT = new double[capacity];
+            logCell = new int[capacity];
+            logCounted = new boolean[capacity];
+        }
+
+        /**
+         * Process the interior events of the region up to the end of the window,
+         * stopping at the first boundary event.
+         */
+        @Override
+        public Void call() {
+            stop = Double.POSITIVE_INFINITY;
+            logSize = 0;
+
+            while (!pq.isEmpty()) {
+                int a = pq.minIndex();
+                double t = pq.time(a);
+                if (t >= end) break;
+                if (isBoundaryEvent(a)) {
+                    stop = t;
+                    break;
+                }
+
+                pq.delete(a);
+                process(a, limit, true);
+            }
+            return null;
+        }
+
+        /**
+         * Checks if the given cell is in the interior of the region, which means that its
+         * column belongs to the region and does not border another region.
+         * @param c The cell
+         * @return true if the cell is in the interior or false otherwise
+         */
+        private boolean isInterior(int c) {
+            int col = grid.col(c);
+            return (col > first || (col == first && first == 0))
+                && (col < last || (col == last && last == grid.cols() - 1));
+        }
+
+        /**
+         * Checks if the event at the given index may involve another region: a particle or
+         * the entered cell is not in the interior of this region. The partner is only looked
+         * at when the particle itself is in the interior, so it belongs to this region too
+         * unless the event is a boundary event anyway.
+         * @param a The index of the event
+         * @return true if it is a boundary event or false otherwise
+         */
+        private boolean isBoundaryEvent(int a) {
+            if (!isInterior(grid.cell(a))) return true;
+
+            int type = pq.type(a);
+            if (type == PARTICLE) return !isInterior(grid.cell(pq.other(a)));
+            if (type == CELL) return !isInterior(pq.other(a));
+            return false;
+        }
+
+        /**
+         * Checks if the event at the given index is valid, it is valid if no other events intervens it.
+         * @param i The index of the event
+         * @return true if valid or false otherwise
+         */
+        private boolean isValid(int i) {
+            if (pq.countA(i) != particles.count(i)) return false;
+            if (pq.type(i) == PARTICLE && pq.countB(i) != particles.count(pq.other(i))) return false;
+
+            return true;
+        }
+
+        /**
+         * Process an event that was just removed from the queue of the region, in the same
+         * way as the Simulator does.
+         * @param a The index of the event
+         * @param limit The simulation time limit
+         * @param logging Whether the states of the particles are saved so that the event can be undone
+         */
+        private void process(int a, double limit, boolean logging) {
+            // The partner changed since the event was predicted, so the particle has to look again
+            if (!isValid(a)) {
+                if (logging) log(a, false);
+                particles.moveTo(a, time);
+                predict(a, time, limit);
+                return;
+            }
+
+            int type = pq.type(a);
+            int b = type == PARTICLE ? pq.other(a) : NONE;
+
+            time = pq.time(a);
+            boolean collision = type != CELL;
+            if (collision) events++;
+
+            if (logging) {
+                log(a, collision);
+                if (b != NONE) log(b, false);
+            }
+            particles.moveTo(a, time);
+            if (b != NONE) particles.moveTo(b, time);
+
+            // Apply approriate action according to the event
+            switch (type) {
+                case PARTICLE:
+                    particles.bounceOff(a, b);
+                    predict(a, time, limit);
+                    predict(b, time, limit);
+                    break;
+                case VERTICAL_WALL:
+                    particles.bounceOffVerticalWall(a);
+                    predict(a, time, limit);
+                    break;
+                case HORIZONTAL_WALL:
+                    particles.bounceOffHorizontalWall(a);
+                    predict(a, time, limit);
+                    break;
+                default:
+                    grid.move(a, pq.other(a));
+                    predict(a, time, limit);
+            }
+        }
+
+        /**
+         * Predict the earliest event of the given particle and keep it as the only event of that
+         * particle in the queue of its region, like Simulator.predictCollission(). For a particle
+         * in the interior of this region all the queues and particles used belong to this region.
+         * @param a The particle that needs to be assessing
+         * @param now The current time, the particle must already be moved to it
+         * @param limit The simulation time limit
+         */
+        private void predict(int a, double now, double limit) {
+            int c = grid.cell(a);
+            int col = grid.col(c), row = grid.row(c);
+            bestTime = limit;
+            bestType = NONE;
+
+            // Particle-Particle prediction
+            for (int dc = -1; dc <= 1; dc++)
+                for (int dr = -1; dr <= 1; dr++) {
+                    int cell = grid.cellAt(col + dc, row + dr);
+                    if (cell == NONE) continue;
+                    for (int i = grid.first(cell); i != NONE; i = grid.next(i))
+                        consider(PARTICLE, i, now + particles.timeToHit(a, i));
+                }
+
+            // Particle-Wall prediction
+            consider(VERTICAL_WALL, NONE, now + particles.timeToHitVerticalWall(a, frameWidth));
+            consider(HORIZONTAL_WALL, NONE, now + particles.timeToHitHorizontalWall(a, frameHeight));
+
+            // Cell crossing prediction
+            double dtX = grid.timeToCrossVertical(c, particles.x(a), particles.vx(a));
+            double dtY = grid.timeToCrossHorizontal(c, particles.y(a), particles.vy(a));
+            consider(CELL, c + (particles.vx(a) > 0 ? 1 : -1), now + dtX);
+            consider(CELL, c + (particles.vy(a) > 0 ? grid.cols() : -grid.cols()), now + dtY);
+
+            EventQueue queue = owner(a).pq;
+            if (bestType == NONE) {
+                if (queue.contains(a)) queue.delete(a);
+                return;
+            }
+
+            int b = bestType == PARTICLE ? bestOther : NONE;
+            queue.set(a, bestTime, bestType, bestOther, particles.count(a), b == NONE ? -1 : particles.count(b));
+
+            // The partner learns about the collision too if it is earlier than what it has
+            if (b != NONE) {
+                EventQueue other = owner(b).pq;
+                if (!other.contains(b) || bestTime < other.time(b))
+                    other.set(b, bestTime, PARTICLE, a, particles.count(b), particles.count(a));
+            }
+        }
+
+        /**
+         * Keep the given event as the earliest one found so far if it happens before it.
+         * @param type The type of the event
+         * @param other The partner particle or the entered cell
+         * @param t The time of the event
+         */
+        private void consider(int type, int other, double t) {
+            if (t < bestTime) {
+                bestTime = t;
+                bestType = type;
+                bestOther = other;
+            }
+        }
+
+        /**
+         * Save the state of a particle before the current event changes it.
+         * @param i The particle
+         * @param counted Whether this entry counts the event as a processed collision
+         */
+        private void log(int i, boolean counted) {
+            if (logSize == logTime.length) {
+                int capacity = 2 * logSize;
+                logTime = Arrays.copyOf(logTime, capacity);
+                logParticle = Arrays.copyOf(logParticle, capacity);
+                logX = Arrays.copyOf(logX, capacity);
+                logY = Arrays.copyOf(logY, capacity);
+                logVx = Arrays.copyOf(logVx, capacity);
+                logVy = Arrays.copyOf(logVy, capacity);
+                logT = Arrays.copyOf(logT, capacity);
+                logCell = Arrays.copyOf(logCell, capacity);
+                logCounted = Arrays.copyOf(logCounted, capacity);
+            }
+
+            int k = logSize++;
+            logTime[k] = time;
+            logParticle[k] = i;
+            logX[k] = particles.x(i);
+            logY[k] = particles.y(i);
+            logVx[k] = particles.vx(i);
+            logVy[k] = particles.vy(i);
+            logT[k] = particles.time(i);
+            logCell[k] = grid.cell(i);
+            logCounted[k] = counted;
+        }
+
+        /**
+         * Undo the events of the current window at or after the given time, newest first,
+         * so that each particle ends up in the state it had before the first undone event.
+         * The restored particles are collected to be predicted again.
+         * @param to The time to roll back to
+         */
+        private void rollback(double to) {
+            int k = logSize - 1;
+            for (; k >= 0 && logTime[k] >= to; k--) {
+                int i = logParticle[k];
+
+                // Its event is predicted again later, in the queue of the region it ends up in
+                EventQueue queue = owner(i).pq;
+                if (queue.contains(i)) queue.delete(i);
+
+                particles.restore(i, logX[k], logY[k], logVx[k], logVy[k], logT[k]);
+                if (grid.cell(i) != logCell[k])
+                    grid.move(i, logCell[k]);
+
+                if (logCounted[k]) {
+                    events--;
+                    undone++;
+                }
+                if (!restored[i]) {
+                    restored[i] = true;
+                    restoredList[restoredCount++] = i;
+                }
+            }
+            logSize = k + 1;
+        }
+    }
+
+    // Test client, runs the simulation headless and reports the event throughput.
+    // The number of threads is set with --threads and the event queue with --scheduler, the
+    // particles come from --seed or --scenario like in the Simulator
+    public static void main(String[] args) {
+        if (args.length < 2)
+            System.out.println("Please specify the number of particles and the simulation time");
+        else {
+            int pNum = Integer.parseInt(args[0]);
+            double limit = Double.parseDouble(args[1]);
+            Scheduler scheduler = Scheduler.of(Options.get(args, "scheduler", "heap"));
+            int threads = Integer.parseInt(Options.get(args, "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            ParallelSimulator simulator = new ParallelSimulator(Simulator.load(args, pNum), new NullRenderer(), scheduler, pool);
+            simulator.setFrameClock(FrameClock.fromOptions(args, false));
+            long start = System.nanoTime();
+            simulator.simulate(limit);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            System.out.printf("%d events in %.3f s on %d regions (%.0f events/s, %d rollbacks undid %d events)%n",
+                simulator.events(), seconds, simulator.regions(), simulator.events() / seconds,
+                simulator.rollbacks(), simulator.undone());
+        }
+    }
+}
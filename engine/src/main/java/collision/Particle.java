@@ -0,0 +1,136 @@
+/**
+ *  Author:         Khoa Nam Pham
+ *  Date modified:  16/10/2026
+ *  Purpose:        This class represent the particles in the simulator.
+ *                  Each particle will have the coordinate, velocity, radius, mass and color.
+ *                  A Particle only describes the initial state of a particle, the simulation
+ *                  itself copies it into a ParticleStore and works on the stored arrays.
+ *                  The color is kept as a packed RGB int so that the engine never needs AWT.
+ */
+
+package collision;
+
+import java.util.Random;
+
+public class Particle {
+    // All the default properties of a particle
+    public static final int DEFAULT_MAX_VELOCITY = 3;
+    public static final int DEFAULT_RADIUS = 10;
+    public static final double DEFAULT_MASS = 250;
+    public static final int DEFAULT_COLOR = 0xFF0000;  // Red
+
+    private double x, y; // Coordinate
+    private double vx, vy; // Velocity
+    private double radius; // Radius
+    private double mass;  // Mass
+    private int color; // The color as packed 0xRRGGBB
+
+    private static final Random rand = new Random();
+
+    /**
+     * Create a new Particle with a random position and velocity
+     * @param frameWidth The width of the canvas
+     * @param frameHeight The height of the canvas
+     * @throws IllegalArgumentException when the given frameWidth or frameHeight is negative.
+     */
+    public Particle(int frameWidth, int frameHeight) {
+        this(frameWidth, frameHeight, rand);
+    }
+
+    /**
+     * Create a new Particle with a position and velocity drawn from the given generator,
+     * so the same seed always gives the same particle.
+     * @param frameWidth The width of the canvas
+     * @param frameHeight The height of the canvas
+     * @param rand The random number generator to use
+     * @throws IllegalArgumentException when the given frameWidth or frameHeight is negative.
+     */
+    public Particle(int frameWidth, int frameHeight, Random rand) {
+        if (frameWidth < 0 || frameHeight < 0)
+            throw new IllegalArgumentException("Invalid frameWidth or frameHeight");
+
+        x = rand.nextInt(frameWidth);
+        y = rand.nextInt(frameHeight);
+        vx = rand.nextInt(DEFAULT_MAX_VELOCITY) + -5;
+        vy = rand.nextInt(DEFAULT_MAX_VELOCITY) + -5;
+        radius = DEFAULT_RADIUS;
+        mass = DEFAULT_MASS;
+        color = DEFAULT_COLOR;
+    }
+
+    /**
+     * Create a new Particle with all the given properties.
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     * @param radius The radius of the particle
+     * @param mass The mass
+     * @param color The color as packed 0xRRGGBB
+     */
+    public Particle(double x, double y, double vx, double vy, double radius, double mass, int color) {
+        this.x = x;
+        this.y = y;
+        this.vx = vx;
+        this.vy = vy;
+        this.radius = radius;
+        this.mass = mass;
+        this.color = color;
+    }
+
+    /**
+     * Returns the x-coordinate of the center.
+     * @return The x-coordinate
+     */
+    public double x() {
+        return x;
+    }
+
+    /**
+     * Returns the y-coordinate of the center.
+     * @return The y-coordinate
+     */
+    public double y() {
+        return y;
+    }
+
+    /**
+     * Returns the horizontal velocity.
+     * @return The horizontal velocity
+     */
+    public double vx() {
+        return vx;
+    }
+
+    /**
+     * Returns the vertical velocity.
+     * @return The vertical velocity
+     */
+    public double vy() {
+        return vy;
+    }
+
+    /**
+     * Returns the radius of the particle.
+     * @return The radius
+     */
+    public double radius() {
+        return radius;
+    }
+
+    /**
+     * Returns the mass of the particle.
+     * @return The mass
+     */
+    public double mass() {
+        return mass;
+    }
+
+    /**
+     * Returns the color of the particle.
+     * @return The color as packed 0xRRGGBB
+     */
+    public int color() {
+        return color;
+    }
+}
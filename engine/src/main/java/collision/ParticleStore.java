@@ -0,0 +1,427 @@
+/**
+ *  Purpose:        This class stores the state of all the particles in the simulator.
+ *                  Instead of one object per particle, every property is kept in its own
+ *                  primitive array and a particle is referred to by its index, so the loops
+ *                  over the particles go through contiguous memory.
+ *                  Each particle keeps track of the number of events that it participated in,
+ *                  which is used to validate the events in the queue.
+ *                  Particles are advanced lazily: each one remembers the time its position
+ *                  was last updated and is only moved when it takes part in an event.
+ */
+
+package collision;
+
+import java.io.IOException;
+
+public class ParticleStore {
+    static final int BYTES = 7 * Double.BYTES + 2 * Integer.BYTES;  // The size of one particle in a checkpoint
+    static final double GRAZING = 1e-18;  // The squared cosine between dv and dr below which particles only graze
+
+    private int size;  // The number of particles stored so far
+    private double[] x, y;  // Coordinate
+    private double[] vx, vy;  // Velocity
+    private double[] radius;  // Radius
+    private double[] mass;  // Mass
+    private double[] time;  // The simulation time when the position was last updated
+    private int[] count;  // The number of events already participated
+    private int[] color;  // The color as packed 0xRRGGBB
+
+    /**
+     * Create an empty store that can hold the given number of particles.
+     * @param capacity The maximum number of particles
+     * @throws IllegalArgumentException when the capacity is negative
+     */
+    public ParticleStore(int capacity) {
+        if (capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative");
+
+        size = 0;
+        x = new double[capacity];
+        y = new double[capacity];
+        vx = new double[capacity];
+        vy = new double[capacity];
+        radius = new double[capacity];
+        mass = new double[capacity];
+        time = new double[capacity];
+        count = new int[capacity];
+        color = new int[capacity];
+    }
+
+    /**
+     * Add a particle with the initial state described by the given Particle.
+     * @param p The particle to add
+     * @return The index of the new particle
+     * @throws IllegalArgumentException when the particle is null
+     * @throws IllegalStateException when the store is full
+     */
+    public int add(Particle p) {
+        if (p == null)
+            throw new IllegalArgumentException("Calling add() with a null particle");
+
+        return add(p.x(), p.y(), p.vx(), p.vy(), p.radius(), p.mass(), p.color());
+    }
+
+    /**
+     * Add a particle with the given properties.
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     * @param radius The radius of the particle
+     * @param mass The mass
+     * @param color The color as packed 0xRRGGBB
+     * @return The index of the new particle
+     * @throws IllegalStateException when the store is full
+     */
+    public int add(double x, double y, double vx, double vy, double radius, double mass, int color) {
+        if (size == this.x.length)
+            throw new IllegalStateException("The store is full");
+
+        int i = size++;
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.radius[i] = radius;
+        this.mass[i] = mass;
+        this.color[i] = color;
+        this.time[i] = 0.0;
+        this.count[i] = 0;
+        return i;
+    }
+
+    /**
+     * Returns the number of particles in the store.
+     * @return The number of particles
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the x-coordinate of a particle at the time it was last updated.
+     * @param i The particle
+     * @return The x-coordinate
+     */
+    public double x(int i) {
+        return x[i];
+    }
+
+    /**
+     * Returns the y-coordinate of a particle at the time it was last updated.
+     * @param i The particle
+     * @return The y-coordinate
+     */
+    public double y(int i) {
+        return y[i];
+    }
+
+    /**
+     * Returns the horizontal velocity of a particle.
+     * @param i The particle
+     * @return The horizontal velocity
+     */
+    public double vx(int i) {
+        return vx[i];
+    }
+
+    /**
+     * Returns the vertical velocity of a particle.
+     * @param i The particle
+     * @return The vertical velocity
+     */
+    public double vy(int i) {
+        return vy[i];
+    }
+
+    /**
+     * Returns the radius of a particle.
+     * @param i The particle
+     * @return The radius
+     */
+    public double radius(int i) {
+        return radius[i];
+    }
+
+    /**
+     * Returns the mass of a particle.
+     * @param i The particle
+     * @return The mass
+     */
+    public double mass(int i) {
+        return mass[i];
+    }
+
+    /**
+     * Returns the color of a particle.
+     * @param i The particle
+     * @return The color as packed 0xRRGGBB
+     */
+    public int color(int i) {
+        return color[i];
+    }
+
+    /**
+     * Returns the number of events that a particle has participated in.
+     * @param i The particle
+     * @return The number of events that consists of this particle.
+     */
+    public int count(int i) {
+        return count[i];
+    }
+
+    /**
+     * Returns the simulation time when the position of a particle was last updated.
+     * @param i The particle
+     * @return The time of the last update
+     */
+    public double time(int i) {
+        return time[i];
+    }
+
+    /**
+     * Returns the total kinetic energy of the particles.
+     * @return The sum of m * v^2 / 2 over all the particles
+     */
+    public double kineticEnergy() {
+        double energy = 0;
+        for (int i = 0; i < size; i++)
+            energy += 0.5 * mass[i] * (vx[i] * vx[i] + vy[i] * vy[i]);
+        return energy;
+    }
+
+    /**
+     * Give all the particles the same radius, used to set up a scenario before it is simulated.
+     * @param r The new radius
+     */
+    void resize(double r) {
+        for (int i = 0; i < size; i++)
+            radius[i] = r;
+    }
+
+    /**
+     * Move a particle over a distance that it can travel in the given amount of time.
+     * @param i The particle
+     * @param dt The amount of time that the particle will travel.
+     */
+    public void move(int i, double dt) {
+        x[i] += vx[i] * dt;
+        y[i] += vy[i] * dt;
+        time[i] += dt;
+    }
+
+    /**
+     * Move a particle to where it is at the given simulation time.
+     * @param i The particle
+     * @param t The simulation time to advance to
+     */
+    public void moveTo(int i, double t) {
+        x[i] += vx[i] * (t - time[i]);
+        y[i] += vy[i] * (t - time[i]);
+        time[i] = t;
+    }
+
+    /**
+     * Calculate and return the amount of time particle i will collide with particle j.
+     * Both particles are projected to the later of their two update times, so the returned
+     * amount of time is counted from that moment. Particles that already overlap never hit,
+     * otherwise the collision would happen in the past, and neither do particles that only
+     * graze, whose relative velocity is almost perpendicular to the line between them.
+     * @param i The first particle
+     * @param j The other particle
+     * @return The amount of time particle i will hit particle j
+     */
+    public double timeToHit(int i, int j) {
+        if (i == j) return Double.POSITIVE_INFINITY;
+
+        double t = Math.max(time[i], time[j]);
+        double dx  = (x[j] + vx[j] * (t - time[j])) - (x[i] + vx[i] * (t - time[i]));
+        double dy  = (y[j] + vy[j] * (t - time[j])) - (y[i] + vy[i] * (t - time[i]));
+        double dvx = vx[j] - vx[i];
+        double dvy = vy[j] - vy[i];
+        double dvdr = dx*dvx + dy*dvy;
+        double dvdv = dvx*dvx + dvy*dvy;
+        double drdr = dx*dx + dy*dy;
+
+        // Moving apart or just grazing. A pair that touches with an approach no faster than
+        // rounding would hit again at once, with a bounce too small to change its velocities
+        if (dvdr >= 0 || dvdr*dvdr <= GRAZING * dvdv * drdr) return Double.POSITIVE_INFINITY;
+        double sigma = radius[i] + radius[j];
+        if (drdr < sigma*sigma) return Double.POSITIVE_INFINITY;  // Already overlapping, let them pass
+        double d = (dvdr*dvdr) - dvdv * (drdr - sigma*sigma);
+        if (d < 0) return Double.POSITIVE_INFINITY;
+        return -(dvdr + Math.sqrt(d)) / dvdv;
+    }
+
+    /**
+     * Calculate how long ago 2 overlapping particles touched, if they kept their current
+     * velocities. The time-stepped engine only finds a collision after the particles
+     * already overlap, so it moves them back by this amount to bounce them off at contact.
+     * Both particles should already be moved to the same time.
+     * @param i The first particle
+     * @param j The other particle
+     * @return The amount of time since the particles touched, or 0 if they do not overlap or move apart
+     */
+    public double timeSinceHit(int i, int j) {
+        double dx  = x[j] - x[i];
+        double dy  = y[j] - y[i];
+        double dvx = vx[j] - vx[i];
+        double dvy = vy[j] - vy[i];
+        double dvdr = dx*dvx + dy*dvy;
+
+        if (dvdr >= 0) return 0;  // Moving apart
+        double drdr = dx*dx + dy*dy;
+        double sigma = radius[i] + radius[j];
+        if (drdr >= sigma*sigma) return 0;  // Not touching
+        double dvdv = dvx*dvx + dvy*dvy;
+        double d = (dvdr*dvdr) - dvdv * (drdr - sigma*sigma);
+        return (dvdr + Math.sqrt(d)) / dvdv;
+    }
+
+    /**
+     * Calculate and return the amount of time for a particle to hit the vertical wall,
+     * counted from the time the particle was last updated. A particle that is already
+     * outside of the wall hits it immediately.
+     * @param i The particle
+     * @param frameWidth The width of the canvas
+     * @return The amount fo time the particle will hit the vertical wall.
+     */
+    public double timeToHitVerticalWall(int i, int frameWidth) {
+        double t = Double.POSITIVE_INFINITY;
+        if (vx[i] > 0)
+            t = (frameWidth - radius[i] - x[i]) / vx[i];
+        else if (vx[i] < 0)
+            t = -(x[i] - radius[i]) / vx[i];
+
+        return Math.max(0.0, t);
+    }
+
+    /**
+     * Calculate and return the amount of time for a particle to hit the horizontal wall,
+     * counted from the time the particle was last updated. A particle that is already
+     * outside of the wall hits it immediately.
+     * @param i The particle
+     * @param frameHeight The height of the canvas
+     * @return The amount of time the particle will hit the horizontal wall.
+     */
+    public double timeToHitHorizontalWall(int i, int frameHeight) {
+        double t = Double.POSITIVE_INFINITY;
+        if (vy[i] > 0)
+            t = (frameHeight - radius[i] - y[i]) / vy[i];
+        else if (vy[i] < 0)
+            t = -(y[i] - radius[i]) / vy[i];
+
+        return Math.max(0.0, t);
+    }
+
+    /**
+     * Put a particle back to an earlier state, used when the ParallelSimulator rolls back the
+     * events of a region. The count still goes up, so that the events predicted from the
+     * discarded state never become valid again.
+     * @param i The particle
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @param vx The horizontal velocity
+     * @param vy The vertical velocity
+     * @param time The simulation time of the position
+     */
+    public void restore(int i, double x, double y, double vx, double vy, double time) {
+        this.x[i] = x;
+        this.y[i] = y;
+        this.vx[i] = vx;
+        this.vy[i] = vy;
+        this.time[i] = time;
+        count[i]++;
+    }
+
+    /**
+     * Write all the particles to a mapped file, one property after another, so the arrays are
+     * copied in bulk. The file needs BYTES bytes per particle.
+     * Package-private, the Checkpoint and the BinaryScenario are the only users.
+     * @param file The file to write to, its position moves past the particles
+     * @throws IOException when the file cannot be mapped
+     */
+    void write(MappedFile file) throws IOException {
+        file.put(x, size);
+        file.put(y, size);
+        file.put(vx, size);
+        file.put(vy, size);
+        file.put(radius, size);
+        file.put(mass, size);
+        file.put(time, size);
+        file.put(count, size);
+        file.put(color, size);
+    }
+
+    /**
+     * Read the given number of particles written by write(MappedFile) into an empty store.
+     * @param file The file to read from, its position moves past the particles
+     * @param n The number of particles
+     * @return The store with the particles
+     * @throws IOException when the file cannot be mapped or is too short
+     */
+    static ParticleStore read(MappedFile file, int n) throws IOException {
+        ParticleStore store = new ParticleStore(n);
+        store.size = n;
+        file.get(store.x);
+        file.get(store.y);
+        file.get(store.vx);
+        file.get(store.vy);
+        file.get(store.radius);
+        file.get(store.mass);
+        file.get(store.time);
+        file.get(store.count);
+        file.get(store.color);
+        return store;
+    }
+
+    /**
+     * Change the velocity of a particle when it hits the vertical wall.
+     * @param i The particle
+     */
+    public void bounceOffVerticalWall(int i) {
+        vx[i] *= -1;
+        count[i]++;
+    }
+
+    /**
+     * Change the velocity of a particle when it hits the horizontal wall.
+     * @param i The particle
+     */
+    public void bounceOffHorizontalWall(int i) {
+        vy[i] *= -1;
+        count[i]++;
+    }
+
+    /**
+     * Change the velocity of 2 particles when they hit each other.
+     * Both particles should already be moved to the time of the collision.
+     * @param i The first particle
+     * @param j The other particle
+     */
+    public void bounceOff(int i, int j) {
+        double dx  = x[j] - x[i];
+        double dy  = y[j] - y[i];
+        double dvx = vx[j] - vx[i];
+        double dvy = vy[j] - vy[i];
+        double dvdr = dx*dvx + dy*dvy;             // dv dot dr
+        double dist = radius[i] + radius[j];       // distance between particle centers at collison
+
+        // magnitude of normal force
+        double magnitude = 2 * mass[i] * mass[j] * dvdr / ((mass[i] + mass[j]) * dist);
+
+        // normal force, and in x and y directions
+        double fx = magnitude * dx / dist;
+        double fy = magnitude * dy / dist;
+
+        // update velocities according to normal force
+        vx[i] += fx / mass[i];
+        vy[i] += fy / mass[i];
+        vx[j] -= fx / mass[j];
+        vy[j] -= fy / mass[j];
+
+        // update collision counts
+        count[i]++;
+        count[j]++;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ *  Purpose:        A scenario of particles with random positions and velocities. The particles
+ *                  are drawn from a new generator with the given seed every time they are
+ *                  created, so the same seed always gives the same particles. All the particles
+ *                  have the same radius, Particle.DEFAULT_RADIUS unless another one is given.
+ */
+
+package collision;
+
+import java.util.Random;
+
+public class RandomScenario implements Scenario {
+    private final int size;  // The number of particles
+    private final long seed;  // The seed of the random number generator
+    private final double radius;  // The radius of every particle
+
+    /**
+     * Create a scenario with the given number of random particles.
+     * @param size The number of particles
+     * @param seed The seed of the random number generator
+     * @throws IllegalArgumentException when the number of particles is negative
+     */
+    public RandomScenario(int size, long seed) {
+        this(size, seed, Particle.DEFAULT_RADIUS);
+    }
+
+    /**
+     * Create a scenario with the given number of random particles of the given radius.
+     * The positions and velocities are the same as with any other radius.
+     * @param size The number of particles
+     * @param seed The seed of the random number generator
+     * @param radius The radius of every particle
+     * @throws IllegalArgumentException when the number of particles is negative or the radius is not positive
+     */
+    public RandomScenario(int size, long seed, double radius) {
+        if (size < 0)
+            throw new IllegalArgumentException("Number of particles cannot be negative");
+        if (!(radius > 0))
+            throw new IllegalArgumentException("Radius must be positive");
+
+        this.size = size;
+        this.seed = seed;
+        this.radius = radius;
+    }
+
+    /**
+     * Returns the seed of the random number generator.
+     * @return The seed
+     */
+    public long seed() {
+        return seed;
+    }
+
+    @Override
+    public ParticleStore load() {
+        ParticleStore particles = generate(size, new Random(seed));
+        if (radius != Particle.DEFAULT_RADIUS)
+            particles.resize(radius);
+        return particles;
+    }
+
+    /**
+     * Generate the given number of random particles on the default canvas.
+     * @param pNum The number of particles
+     * @param rand The random number generator used to create the particles
+     * @return The particles
+     * @throws IllegalArgumentException when the generator is null
+     */
+    static ParticleStore generate(int pNum, Random rand) {
+        if (rand == null)
+            throw new IllegalArgumentException("Random generator cannot be null");
+
+        ParticleStore particles = new ParticleStore(pNum);
+        for (int i = 0; i < pNum; i++) {
+            particles.add(new Particle(Simulator.DEFAULT_SIZE, Simulator.DEFAULT_SIZE, rand));
+        }
+        return particles;
+    }
+}
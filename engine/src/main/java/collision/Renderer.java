@@ -0,0 +1,16 @@
+/**
+ *  Purpose:        The interface that the Simulator uses to show the particles.
+ *                  The Simulator calls render() at every redraw event, so an
+ *                  implementation decides how (and whether) the particles are displayed.
+ */
+
+package collision;
+
+public interface Renderer {
+    /**
+     * Show all the particles at the given moment of the simulation.
+     * @param particles All the particles in the simulation
+     * @param time The current simulation time
+     */
+    void render(ParticleStore particles, double time);
+}
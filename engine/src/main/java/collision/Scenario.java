@@ -0,0 +1,58 @@
+/**
+ *  Purpose:        Where the initial particles of a simulation come from. A scenario always
+ *                  gives the same particles, so every run started from it processes the same
+ *                  events in the same order.
+ *                  RandomScenario: particles drawn from a random number generator with a seed
+ *                  CsvScenario: particles read from a text file, one particle per line
+ *                  BinaryScenario: particles read from a memory-mapped binary file
+ */
+
+package collision;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public interface Scenario {
+    /**
+     * Create the particles of the scenario. Every call gives a new store with the same particles.
+     * @return The particles
+     * @throws IOException when the particles cannot be read
+     */
+    ParticleStore load() throws IOException;
+
+    /**
+     * Create the scenario asked for on the command line: --scenario=<file> reads the particles
+     * from a file, a CSV file if its name ends with .csv or a binary file otherwise, and
+     * --seed=<n> generates the given number of particles from that seed. Without either option
+     * the particles are generated from a random seed.
+     * @param args The command line arguments
+     * @param pNum The number of particles to generate, ignored when they are read from a file
+     * @return The scenario
+     */
+    static Scenario fromOptions(String[] args, int pNum) {
+        String file = Options.get(args, "scenario", null);
+        if (file != null)
+            return of(Paths.get(file));
+
+        String seed = Options.get(args, "seed", null);
+        return new RandomScenario(pNum, seed == null ? new Random().nextLong() : Long.parseLong(seed));
+    }
+
+    /**
+     * Create the scenario stored in a file, a CSV file if its name ends with .csv or a binary
+     * file otherwise.
+     * @param file The file
+     * @return The scenario
+     * @throws IllegalArgumentException when the file is null
+     */
+    static Scenario of(Path file) {
+        if (file == null)
+            throw new IllegalArgumentException("File cannot be null");
+
+        if (file.getFileName().toString().toLowerCase().endsWith(".csv"))
+            return new CsvScenario(file);
+        return new BinaryScenario(file);
+    }
+}
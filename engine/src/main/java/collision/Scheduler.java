@@ -0,0 +1,40 @@
+/**
+ *  Purpose:        The event queues that the Simulator can be started with.
+ *                  HEAP: the binary heap, O(logN) per event whatever the event times are
+ *                  CALENDAR: the calendar queue, O(1) per event when the event times are
+ *                  spread evenly, which is the usual case in the simulation
+ */
+
+package collision;
+
+public enum Scheduler {
+    HEAP, CALENDAR;
+
+    /**
+     * Create an empty event queue of this kind.
+     * @param capacity The number of indices the queue can hold
+     * @return The new event queue
+     */
+    public EventQueue create(int capacity) {
+        switch (this) {
+            case CALENDAR:
+                return new CalendarEventQueue(capacity);
+            default:
+                return new HeapEventQueue(capacity);
+        }
+    }
+
+    /**
+     * Find the scheduler with the given name, ignoring the case.
+     * @param name The name of the scheduler, heap or calendar
+     * @return The scheduler with that name
+     * @throws IllegalArgumentException when there is no scheduler with that name
+     */
+    public static Scheduler of(String name) {
+        for (Scheduler scheduler : values())
+            if (scheduler.name().equalsIgnoreCase(name))
+                return scheduler;
+
+        throw new IllegalArgumentException("Unknown scheduler: " + name);
+    }
+}
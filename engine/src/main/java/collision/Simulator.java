@@ -0,0 +1,707 @@
+/**
+ * Author:      Khoa Nam Pham
+ * Date modified:   16/10/2026
+ * Purpose:     The main Simulator class that control the simulation.
+ */
+
+package collision;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+
+public class Simulator {
+    public static final int DEFAULT_SIZE = 512;  // Default canvas size, same as the Draw canvas
+    static final int CELL_MARGIN = 2;  // Extra cell width to absorb rounding of the positions
+    static final double MIN_HORIZON = 0.01;  // The adaptive horizon never gets shorter than this
+    static final int ADAPT_EVERY = 4096;  // The number of events between 2 changes of the adaptive horizon
+    static final double ADAPT_FACTOR = 1.25;  // How much the adaptive horizon changes at once
+
+    // Event types, every particle keeps only its earliest event in the queue at its own index:
+    // REDRAW: redraw event, no particle involved
+    // PARTICLE: the particle hits another particle
+    // VERTICAL_WALL: the particle hits a vertical wall
+    // HORIZONTAL_WALL: the particle hits a horizontal wall
+    // CELL: the particle crosses the border into another grid cell, or leaves its sweep and prune box
+    // REPREDICT: nothing happens to the particle before the prediction horizon, so it looks again
+    static final int REDRAW = 0, PARTICLE = 1, VERTICAL_WALL = 2, HORIZONTAL_WALL = 3, CELL = 4, REPREDICT = 5;
+    static final int NONE = Grid.NONE;  // Index used when an event has no such particle
+
+    private ParticleStore particles;  // All the particles in the simulation
+    private EventQueue pq;  // The next event of each particle, the last index is the redraw event
+    private Grid grid;  // The broad phase, each particle can only hit those in the neighbouring cells
+    private SweepAndPrune sweep;  // The broad phase when sweep and prune is used, the grid is null then
+    private HitBatch batch = new HitBatch();  // The particles in the neighbouring cells of the predicted one
+    private double time;  // The elapsed time the simulation had happend
+    private double limit = Double.NaN;  // The time limit the events in the queue were predicted with
+    private long events;  // The number of collisions with a particle or a wall processed so far
+    private long bookkeeping;  // The number of valid REDRAW, CELL and REPREDICT events processed so far
+    private int frameWidth = DEFAULT_SIZE, frameHeight = DEFAULT_SIZE;  // Canvas size
+    private Renderer renderer;  // Shows the particles at every redraw event
+    private FrameClock frames = new FrameClock();  // When the redraw events happen and which frames are drawn
+    private SimulatorMetrics metrics;  // Counts what happens in the event loop, null if not measured
+    private EventLog log;  // Records every collision, null if there is no log
+    private Statistics stats;  // The physical observables, null if they are not computed
+    private Path checkpointFile;  // Where the checkpoints are written, null if there are none
+    private double checkpointInterval, nextCheckpoint;  // The simulation time between and of the next checkpoints
+    private double horizon = Double.POSITIVE_INFINITY;  // How far ahead the events are predicted
+    private boolean adaptive;  // Whether the horizon follows the share of wasted predictions
+    private int windowEvents, windowInvalid, windowRepredict;  // What was removed from the queue since the last change
+
+    // The earliest event found so far while predicting the events of a particle
+    private double bestTime;
+    private int bestType, bestOther;
+
+    /**
+     * Create a simulator with the given number of particles and renderer.
+     * All the particles in the simulator will be generated randomly.
+     * @param pNum The number of particles
+     * @param renderer The renderer used at every redraw event, use NullRenderer to run headless
+     * @throws IllegalArgumentException when the renderer is null
+     */
+    public Simulator(int pNum, Renderer renderer) {
+        this(pNum, renderer, new Random());
+    }
+
+    /**
+     * Create a simulator with the given number of particles and renderer.
+     * All the particles are generated from the given random number generator,
+     * so the same seed always gives the same simulation.
+     * @param pNum The number of particles
+     * @param renderer The renderer used at every redraw event, use NullRenderer to run headless
+     * @param rand The random number generator used to create the particles
+     * @throws IllegalArgumentException when the renderer or the generator is null
+     */
+    public Simulator(int pNum, Renderer renderer, Random rand) {
+        this(pNum, renderer, rand, Scheduler.HEAP);
+    }
+
+    /**
+     * Create a simulator with the given number of particles, renderer and event queue.
+     * All the particles are generated from the given random number generator,
+     * so the same seed always gives the same simulation.
+     * @param pNum The number of particles
+     * @param renderer The renderer used at every redraw event, use NullRenderer to run headless
+     * @param rand The random number generator used to create the particles
+     * @param scheduler The kind of event queue used to order the events
+     * @throws IllegalArgumentException when the renderer, the generator or the scheduler is null
+     */
+    public Simulator(int pNum, Renderer renderer, Random rand, Scheduler scheduler) {
+        this(RandomScenario.generate(pNum, rand), null, renderer, scheduler, BroadPhase.GRID);
+    }
+
+    /**
+     * Create a simulator with the given particles, for example those of a Scenario.
+     * The simulator works on the store itself, so it should not be shared with another one.
+     * @param particles The particles
+     * @param renderer The renderer used at every redraw event, use NullRenderer to run headless
+     * @param scheduler The kind of event queue used to order the events
+     * @throws IllegalArgumentException when any of the arguments is null
+     */
+    public Simulator(ParticleStore particles, Renderer renderer, Scheduler scheduler) {
+        this(particles, renderer, scheduler, BroadPhase.GRID);
+    }
+
+    /**
+     * Create a simulator with the given particles and broad phase.
+     * The simulator works on the store itself, so it should not be shared with another one.
+     * @param particles The particles
+     * @param renderer The renderer used at every redraw event, use NullRenderer to run headless
+     * @param scheduler The kind of event queue used to order the events
+     * @param broadPhase The way the particles that one particle can hit are found
+     * @throws IllegalArgumentException when any of the arguments is null
+     */
+    public Simulator(ParticleStore particles, Renderer renderer, Scheduler scheduler, BroadPhase broadPhase) {
+        this(particles, null, renderer, scheduler, broadPhase);
+    }
+
+    /**
+     * Create a simulator with the given particles.
+     * @param particles The particles
+     * @param cells The grid cell of each particle, or null to find them from the positions
+     * @param renderer The renderer used at every redraw event
+     * @param scheduler The kind of event queue used to order the events
+     * @param broadPhase The way the particles that one particle can hit are found
+     * @throws IllegalArgumentException when the particles, the renderer, the scheduler or the broad phase is null
+     */
+    private Simulator(ParticleStore particles, int[] cells, Renderer renderer, Scheduler scheduler,
+                      BroadPhase broadPhase) {
+        if (particles == null)
+            throw new IllegalArgumentException("Particles cannot be null");
+        if (renderer == null)
+            throw new IllegalArgumentException("Renderer cannot be null");
+        if (scheduler == null)
+            throw new IllegalArgumentException("Scheduler cannot be null");
+        if (broadPhase == null)
+            throw new IllegalArgumentException("Broad phase cannot be null");
+
+        int pNum = particles.size();
+        this.particles = particles;
+
+        // Each cell must be at least as wide as the largest particle, while a sweep and prune
+        // box only grows by the mean radius so a particle places its box again about every radius
+        double maxRadius = 0, sumRadius = 0;
+        for (int i = 0; i < pNum; i++) {
+            maxRadius = Math.max(maxRadius, particles.radius(i));
+            sumRadius += particles.radius(i);
+        }
+
+        if (broadPhase == BroadPhase.SWEEP)
+            sweep = new SweepAndPrune(particles, pNum == 0 ? 1 : Math.max(sumRadius / pNum, CELL_MARGIN));
+        else {
+            grid = new Grid(frameWidth, frameHeight, 2 * maxRadius + CELL_MARGIN, pNum);
+            for (int i = 0; i < pNum; i++)
+                grid.insert(i, cells == null ? grid.cellOf(particles.x(i), particles.y(i)) : cells[i]);
+        }
+
+        this.renderer = renderer;
+        time = 0.0;
+        events = 0;
+        pq = scheduler.create(pNum + 1);
+    }
+
+    /**
+     * Create a simulator that continues from a checkpoint. The pending events are either put
+     * back into the queue as they were, so the run goes on exactly where it stopped if it is
+     * given the same time limit, or predicted again from the particles when it starts.
+     * @param checkpoint The checkpoint to continue from
+     * @param renderer The renderer used at every redraw event, use NullRenderer to run headless
+     * @param scheduler The kind of event queue used to order the events
+     * @param repredict true to predict the events again, false to use those in the checkpoint
+     * @return The simulator
+     * @throws IllegalArgumentException when the checkpoint, the renderer or the scheduler is null
+     */
+    public static Simulator restore(Checkpoint checkpoint, Renderer renderer, Scheduler scheduler, boolean repredict) {
+        if (checkpoint == null)
+            throw new IllegalArgumentException("Checkpoint cannot be null");
+
+        Simulator simulator = new Simulator(checkpoint.particles, checkpoint.cells, renderer, scheduler, BroadPhase.GRID);
+        simulator.time = checkpoint.time;
+        simulator.events = checkpoint.processed;
+        if (!repredict) {
+            for (int k = 0; k < checkpoint.pending(); k++)
+                simulator.pq.set(checkpoint.eventIndex[k], checkpoint.eventTime[k], checkpoint.eventType[k],
+                    checkpoint.eventOther[k], checkpoint.eventCountA[k], checkpoint.eventCountB[k]);
+            simulator.limit = checkpoint.limit;
+        }
+        return simulator;
+    }
+
+    /**
+     * Returns the number of physical events processed so far, the collisions with another
+     * particle or a wall. The redraws, cell crossings and re-predictions are not counted,
+     * so the number does not depend on the broad phase or the prediction horizon.
+     * @return The number of events processed
+     */
+    public long events() {
+        return events;
+    }
+
+    /**
+     * Returns the number of bookkeeping events processed since the simulator was created:
+     * the redraws, the cell crossings or sweep and prune updates, and the re-predictions at
+     * the end of the horizon.
+     * @return The number of bookkeeping events processed
+     */
+    public long bookkeeping() {
+        return bookkeeping;
+    }
+
+    /**
+     * Returns the current simulation time.
+     * @return The simulation time
+     */
+    public double time() {
+        return time;
+    }
+
+    /**
+     * Returns the total kinetic energy of the particles, which the collisions should conserve.
+     * @return The kinetic energy
+     */
+    public double energy() {
+        return particles.kineticEnergy();
+    }
+
+    /**
+     * Measure the event loop with the given metrics from now on.
+     * @param metrics The metrics to update, or null to stop measuring
+     */
+    public void setMetrics(SimulatorMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Record every collision with a particle or a wall to the given event log from now on.
+     * The simulation does not close the log.
+     * @param log The event log, or null to stop recording
+     */
+    public void setEventLog(EventLog log) {
+        this.log = log;
+    }
+
+    /**
+     * Compute the given statistics while the simulation runs, a sample is taken at every
+     * redraw event.
+     * @param stats The statistics to update, or null to stop computing them
+     */
+    public void setStatistics(Statistics stats) {
+        this.stats = stats;
+    }
+
+    /**
+     * Schedule the redraw events with the given clock from now on, which sets the simulation
+     * time per frame and decides which frames are drawn and how long each of them takes.
+     * The statistics and the checkpoints still happen at every redraw event, drawn or not.
+     * @param frames The frame clock, it should not be shared with another simulation
+     * @throws IllegalArgumentException when the clock is null
+     */
+    public void setFrameClock(FrameClock frames) {
+        if (frames == null)
+            throw new IllegalArgumentException("Frame clock cannot be null");
+
+        this.frames = frames;
+    }
+
+    /**
+     * Only predict the events that happen within the given amount of time from now. A particle
+     * with nothing to do before that gets a REPREDICT event at the end of the horizon instead,
+     * so the queue only holds events in a narrow window of time.
+     * An adaptive horizon starts at the given value and is changed every ADAPT_EVERY events:
+     * it grows when more events were REPREDICT than invalid, as the particles looked again
+     * for nothing, and shrinks otherwise, as the events predicted far ahead were thrown away.
+     * @param horizon The amount of time to predict ahead, infinity to predict up to the time limit
+     * @param adaptive true to let the simulation tune the horizon
+     * @throws IllegalArgumentException when the horizon is not positive
+     */
+    public void setHorizon(double horizon, boolean adaptive) {
+        if (!(horizon > 0))
+            throw new IllegalArgumentException("Horizon must be positive");
+        if (adaptive && Double.isInfinite(horizon))
+            throw new IllegalArgumentException("An adaptive horizon must start at a finite value");
+
+        this.horizon = horizon;
+        this.adaptive = adaptive;
+        windowEvents = windowInvalid = windowRepredict = 0;
+    }
+
+    /**
+     * Returns how far ahead the events are currently predicted.
+     * @return The prediction horizon, infinity if there is none
+     */
+    public double horizon() {
+        return horizon;
+    }
+
+    /**
+     * Write a checkpoint to the given file every time the given amount of simulation time
+     * has passed. The checkpoints are taken at the redraw events.
+     * @param file The file to write, every checkpoint replaces the previous one
+     * @param interval The amount of simulation time between 2 checkpoints
+     * @throws IllegalArgumentException when the file is null or the interval is not positive
+     * @throws IllegalStateException when the simulator uses sweep and prune
+     */
+    public void setCheckpoint(Path file, double interval) {
+        if (grid == null)
+            throw new IllegalStateException("Checkpoints need the grid broad phase");
+        if (file == null)
+            throw new IllegalArgumentException("Checkpoint file cannot be null");
+        if (!(interval > 0))
+            throw new IllegalArgumentException("Checkpoint interval must be positive");
+
+        checkpointFile = file;
+        checkpointInterval = interval;
+        nextCheckpoint = time + interval;
+    }
+
+    /**
+     * Returns a checkpoint of the current state. The checkpoint shares the particles with
+     * the simulator, so it should be written before the simulation goes on.
+     * @return The checkpoint
+     * @throws IllegalStateException when the simulator uses sweep and prune
+     */
+    public Checkpoint checkpoint() {
+        if (grid == null)
+            throw new IllegalStateException("Checkpoints need the grid broad phase");
+
+        int n = particles.size();
+        int[] cells = new int[n];
+        for (int i = 0; i < n; i++)
+            cells[i] = grid.cell(i);
+
+        int pending = pq.size(), k = 0;
+        int[] index = new int[pending], type = new int[pending], other = new int[pending];
+        int[] countA = new int[pending], countB = new int[pending];
+        double[] times = new double[pending];
+        for (int i = 0; i <= n; i++) {
+            if (!pq.contains(i)) continue;
+            index[k] = i;
+            times[k] = pq.time(i);
+            type[k] = pq.type(i);
+            other[k] = pq.other(i);
+            countA[k] = pq.countA(i);
+            countB[k] = pq.countB(i);
+            k++;
+        }
+
+        return new Checkpoint(particles, cells, time, limit, events, index, times, type, other, countA, countB);
+    }
+
+    /**
+     * Starts the simulation with the given time limit. A simulator that was restored from a
+     * checkpoint continues from the time of the checkpoint.
+     * @param limit The time limit for the simulation, simulation will stop after this amount of time.
+     */
+    public void simulate(double limit) {
+        if (metrics != null) {
+            metrics.start();
+            metrics.horizon(horizon);
+        }
+        if (stats != null) stats.start(particles, time, frameWidth, frameHeight);
+        frames.start();
+
+        // Pre-fill the queue with the first event of every particle, unless the queue
+        // already holds the events of a checkpoint for the same limit
+        if (pq.isEmpty() || limit != this.limit) {
+            this.limit = limit;
+            for (int i = 0; i < particles.size(); i++) {
+                particles.moveTo(i, time);
+                predictCollission(i, limit);
+            }
+            pq.set(particles.size(), time, REDRAW, NONE, -1, -1);  // Draw the particles first
+        }
+
+        // While there is still an event in the queue
+        while (!pq.isEmpty()) {
+            if (metrics != null) metrics.queue(pq.size());
+            int a = pq.remove();
+            if (adaptive && ++windowEvents == ADAPT_EVERY) adapt();
+
+            // The partner changed since the event was predicted, so the particle has to look again
+            if (!isValid(a)) {
+                if (metrics != null) metrics.invalid();
+                windowInvalid++;
+                long start = clock();
+                particles.moveTo(a, time);
+                if (metrics != null) metrics.move(clock() - start);
+                predictCollission(a, limit);
+                continue;
+            }
+
+            int type = pq.type(a);
+            int b = type == PARTICLE ? pq.other(a) : NONE;
+
+            time = pq.time(a);
+            if (type == PARTICLE || type == VERTICAL_WALL || type == HORIZONTAL_WALL) events++;
+            else bookkeeping++;
+            if (metrics != null) metrics.event(type, time);
+
+            // Only the participating particles are moved to the moment when the event occurs,
+            // the others stay where they were last updated until they are needed
+            long start = clock();
+            if (type != REDRAW) particles.moveTo(a, time);
+            if (b != NONE) particles.moveTo(b, time);
+            if (metrics != null) metrics.move(clock() - start);
+
+            // Apply approriate action according to the event
+            switch (type) {
+                case PARTICLE:
+                    if (stats != null) stats.before(particles, a, b, time);
+                    particles.bounceOff(a, b);
+                    if (stats != null) stats.after(particles, a, b);
+                    if (log != null)
+                        log.append(time, type, a, b, particles.vx(a), particles.vy(a), particles.vx(b), particles.vy(b));
+                    predictCollission(a, limit);
+                    predictCollission(b, limit);
+                    break;
+                case VERTICAL_WALL:
+                    if (stats != null) stats.wall(particles, a, true);
+                    particles.bounceOffVerticalWall(a);
+                    if (log != null) log.append(time, type, a, NONE, particles.vx(a), particles.vy(a), 0, 0);
+                    predictCollission(a, limit);
+                    break;
+                case HORIZONTAL_WALL:
+                    if (stats != null) stats.wall(particles, a, false);
+                    particles.bounceOffHorizontalWall(a);
+                    if (log != null) log.append(time, type, a, NONE, particles.vx(a), particles.vy(a), 0, 0);
+                    predictCollission(a, limit);
+                    break;
+                case CELL:
+                    if (sweep != null) sweep.update(a, particles.x(a), particles.radius(a));
+                    else grid.move(a, pq.other(a));
+                    predictCollission(a, limit);
+                    break;
+                case REPREDICT:
+                    windowRepredict++;
+                    predictCollission(a, limit);
+                    break;
+                default:
+                    redraw(limit);
+            }
+        }
+    } 
+
+    /**
+     * Checks if the event at the given index is valid, it is valid if no other events intervens it.
+     * @param i The index of the event
+     * @return true if valid or false otherwise
+     */
+    private boolean isValid(int i) {
+        if (pq.type(i) == REDRAW) return true;
+        if (pq.countA(i) != particles.count(i)) return false;
+        if (pq.type(i) == PARTICLE && pq.countB(i) != particles.count(pq.other(i))) return false;
+
+        return true;
+    }
+
+    /**
+     * Predict the earliest event of the given particle and keep it as the only event of that
+     * particle in the queue. Only the particles in the same or the neighbouring cells, or whose
+     * sweep and prune boxes overlap, are checked.
+     * Package-private so that the benchmarks can measure it on its own.
+     * @param a The particle that needs to be assessing
+     * @param limit The simulation time limit
+     */
+    void predictCollission(int a, double limit) {
+        long start = clock();
+        predictEvent(a, limit);
+        if (metrics != null) metrics.predict(clock() - start);
+    }
+
+    /**
+     * The prediction itself, see predictCollission(int, double).
+     * @param a The particle that needs to be assessing
+     * @param limit The simulation time limit
+     */
+    private void predictEvent(int a, double limit) {
+        double end = time + horizon;
+        bestTime = Math.min(limit, end);
+        bestType = NONE;
+
+        // Particle-Particle prediction, all the candidates are checked in one batch
+        batch.clear();
+        if (sweep != null)
+            sweep.gather(a, batch);
+        else {
+            int c = grid.cell(a);
+            int col = grid.col(c), row = grid.row(c);
+            for (int dc = -1; dc <= 1; dc++)
+                for (int dr = -1; dr <= 1; dr++)
+                    gather(grid.cellAt(col + dc, row + dr));
+        }
+        int hit = batch.earliest(particles, a);
+        if (hit != NONE)
+            consider(PARTICLE, hit, time + batch.earliestTime());
+
+        // Particle-Wall prediction
+        consider(VERTICAL_WALL, NONE, time + particles.timeToHitVerticalWall(a, frameWidth));
+        consider(HORIZONTAL_WALL, NONE, time + particles.timeToHitHorizontalWall(a, frameHeight));
+
+        // Cell crossing prediction, or leaving the sweep and prune box
+        if (sweep != null)
+            consider(CELL, NONE, time + sweep.timeToLeave(a, particles.x(a), particles.vx(a)));
+        else {
+            int c = grid.cell(a);
+            double dtX = grid.timeToCrossVertical(c, particles.x(a), particles.vx(a));
+            double dtY = grid.timeToCrossHorizontal(c, particles.y(a), particles.vy(a));
+            consider(CELL, c + (particles.vx(a) > 0 ? 1 : -1), time + dtX);
+            consider(CELL, c + (particles.vy(a) > 0 ? grid.cols() : -grid.cols()), time + dtY);
+        }
+
+        if (bestType == NONE) {
+            if (end < limit)
+                pq.set(a, end, REPREDICT, NONE, particles.count(a), -1);
+            else if (pq.contains(a))
+                pq.delete(a);
+            return;
+        }
+
+        int b = bestType == PARTICLE ? bestOther : NONE;
+        pq.set(a, bestTime, bestType, bestOther, particles.count(a), b == NONE ? -1 : particles.count(b));
+
+        // The partner learns about the collision too if it is earlier than what it has
+        if (b != NONE && (!pq.contains(b) || bestTime < pq.time(b)))
+            pq.set(b, bestTime, PARTICLE, a, particles.count(b), particles.count(a));
+    }
+
+    /**
+     * Add the particles in a cell to the batch of candidates.
+     * @param c The cell, nothing happens if it is NONE
+     */
+    private void gather(int c) {
+        if (c == NONE) return;
+
+        for (int i = grid.first(c); i != NONE; i = grid.next(i))
+            batch.add(i);
+    }
+
+    /**
+     * Keep the given event as the earliest one found so far if it happens before it.
+     * @param type The type of the event
+     * @param other The partner particle or the entered cell
+     * @param t The time of the event
+     */
+    private void consider(int type, int other, double t) {
+        if (t < bestTime) {
+            bestTime = t;
+            bestType = type;
+            bestOther = other;
+        }
+    }
+
+    /**
+     * Change the adaptive horizon after ADAPT_EVERY events and start counting again.
+     */
+    private void adapt() {
+        if (windowRepredict > windowInvalid)
+            horizon *= ADAPT_FACTOR;
+        else
+            horizon = Math.max(MIN_HORIZON, horizon / ADAPT_FACTOR);
+
+        if (metrics != null) metrics.horizon(horizon);
+        windowEvents = windowInvalid = windowRepredict = 0;
+    }
+
+    /**
+     * Draw all the particles, unless the frame clock skips this frame, and schedule the next
+     * redraw event
+     * @param limit The simulation time limit
+     */
+    private void redraw(double limit) {
+        if (stats != null) stats.sample(time);
+
+        if (frames.due()) {
+            long start = clock();
+            for (int i = 0; i < particles.size(); i++)
+                particles.moveTo(i, time);
+            if (metrics != null) metrics.move(clock() - start);
+
+            start = clock();
+            renderer.render(particles, time);
+            if (metrics != null) metrics.draw(clock() - start);
+        }
+
+        double next = time + frames.next();
+        if (next < limit)
+            pq.set(particles.size(), next, REDRAW, NONE, -1, -1);
+
+        if (checkpointFile != null && time >= nextCheckpoint) {
+            try {
+                checkpoint().write(checkpointFile);
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Cannot write the checkpoint", e);
+            }
+            nextCheckpoint += checkpointInterval;
+        }
+    }
+
+    /**
+     * Returns the current time in nanoseconds when the event loop is measured.
+     * @return The time in nanoseconds, or 0 if there are no metrics
+     */
+    private long clock() {
+        return metrics == null ? 0 : System.nanoTime();
+    }
+
+    /**
+     * Load the particles of the scenario asked for on the command line, see Scenario.fromOptions().
+     * @param args The command line arguments
+     * @param pNum The number of particles to generate, ignored when they are read from a file
+     * @return The particles
+     * @throws UncheckedIOException when the scenario file cannot be read
+     */
+    public static ParticleStore load(String[] args, int pNum) {
+        try {
+            return Scenario.fromOptions(args, pNum).load();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the scenario", e);
+        }
+    }
+
+    // Test client, runs the simulation headless and reports the event throughput.
+    // The event queue is picked with --scheduler=heap or --scheduler=calendar,
+    // --engine=stepped runs the time-stepped SteppedSimulator instead and
+    // --engine=parallel the ParallelSimulator. --metrics registers the MBean and
+    // --metrics-log=<seconds> prints the metrics periodically. --checkpoint=<file> writes a
+    // checkpoint every --checkpoint-every=<time> of simulation time, --resume=<file> continues
+    // from one (the number of particles is then ignored) and --repredict predicts its events again.
+    // --event-log=<file> records every collision to a binary file. --seed=<n> generates the
+    // particles from a seed and --scenario=<file> reads them from a CSV or binary file instead.
+    // --stats prints the temperature, pressure, collision frequency and mean free path at every
+    // redraw, --stats-every=<time> only once every given amount of simulation time.
+    // --broad-phase=sweep uses sweep and prune instead of the grid. --horizon=<time> only predicts
+    // the events that far ahead and --adaptive-horizon tunes it while the simulation runs.
+    // --frame-time=<time> sets the simulation time between 2 redraw events
+    public static void main(String[] args) {
+        String engine = Options.get(args, "engine", "event");
+        if (engine.equals("stepped"))
+            SteppedSimulator.main(args);
+        else if (engine.equals("parallel"))
+            ParallelSimulator.main(args);
+        else if (!engine.equals("event"))
+            throw new IllegalArgumentException("Unknown engine: " + engine);
+        else if (args.length < 2)
+            System.out.println("Please specify the number of particles and the simulation time");
+        else {
+            int pNum = Integer.parseInt(args[0]);
+            double limit = Double.parseDouble(args[1]);
+            Scheduler scheduler = Scheduler.of(Options.get(args, "scheduler", "heap"));
+            BroadPhase broadPhase = BroadPhase.of(Options.get(args, "broad-phase", "grid"));
+
+            String resume = Options.get(args, "resume", null);
+            String checkpoint = Options.get(args, "checkpoint", null);
+
+            Simulator simulator;
+            if (resume == null)
+                simulator = new Simulator(load(args, pNum), new NullRenderer(), scheduler, broadPhase);
+            else {
+                try {
+                    simulator = restore(Checkpoint.read(Paths.get(resume)), new NullRenderer(), scheduler,
+                        Options.has(args, "--repredict"));
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException("Cannot read the checkpoint", e);
+                }
+            }
+            if (checkpoint != null)
+                simulator.setCheckpoint(Paths.get(checkpoint),
+                    Double.parseDouble(Options.get(args, "checkpoint-every", "100")));
+            simulator.setMetrics(SimulatorMetrics.fromOptions(args));
+            simulator.setStatistics(Statistics.fromOptions(args));
+            FrameClock frames = FrameClock.fromOptions(args, false);
+            simulator.setFrameClock(frames);
+            String horizon = Options.get(args, "horizon", null);
+            if (horizon != null || Options.has(args, "--adaptive-horizon"))
+                simulator.setHorizon(horizon == null ? frames.interval() : Double.parseDouble(horizon),
+                    Options.has(args, "--adaptive-horizon"));
+
+            String logFile = Options.get(args, "event-log", null);
+            EventLog log = null;
+            try {
+                if (logFile != null) {
+                    log = new EventLog(Paths.get(logFile));
+                    simulator.setEventLog(log);
+                }
+
+                long start = System.nanoTime();
+                simulator.simulate(limit);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                System.out.printf("%d events in %.3f s (%.0f events/s), %d bookkeeping events%n",
+                    simulator.events(), seconds, simulator.events() / seconds, simulator.bookkeeping());
+
+                if (log != null) {
+                    log.close();
+                    System.out.printf("%d collisions logged, %d dropped%n",
+                        log.appended(), log.dropped());
+                }
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException("Cannot write the event log", e);
+            }
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,335 @@
+/**
+ *  Purpose:        Counters and gauges of the event loop of a Simulator: the events by type,
+ *                  the events that failed isValid(), the size of the queue and the time spent
+ *                  moving particles, predicting events and drawing.
+ *                  The metrics can be registered as an MBean and printed as a periodic log line.
+ *                  Only the simulation thread writes the counters, so the volatile fields are
+ *                  enough for JMX and the log thread to read them while the simulation runs.
+ */
+
+package collision;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+public class SimulatorMetrics implements SimulatorMetricsMBean {
+    public static final String OBJECT_NAME = "collision:type=Simulator";  // The name of the MBean
+
+    private volatile long start;  // The wall clock time when the simulation started
+    private volatile double simulationTime;
+    private volatile long particleEvents, verticalWallEvents, horizontalWallEvents, cellEvents, redrawEvents;
+    private volatile long repredictEvents;
+    private volatile double horizon = Double.POSITIVE_INFINITY;
+    private volatile long invalidEvents;
+    private volatile int queueSize, peakQueueSize;
+    private volatile long moveNanos, predictNanos, drawNanos;
+
+    private ScheduledExecutorService logger;  // Prints the log line, null if it is not started
+
+    /**
+     * Create the metrics asked for on the command line: --metrics registers the MBean and
+     * --metrics-log=<seconds> prints the log line to the standard output.
+     * @param args The command line arguments
+     * @return The metrics, or null if neither option is given
+     */
+    public static SimulatorMetrics fromOptions(String[] args) {
+        boolean register = Options.has(args, "--metrics");
+        String log = Options.get(args, "metrics-log", null);
+        if (!register && log == null)
+            return null;
+
+        SimulatorMetrics metrics = new SimulatorMetrics();
+        if (register) metrics.register();
+        if (log != null) metrics.startLogging(Double.parseDouble(log), System.out);
+        return metrics;
+    }
+
+    /**
+     * Mark the start of the simulation, the rates are counted from this moment.
+     */
+    public void start() {
+        start = System.nanoTime();
+    }
+
+    /**
+     * Count a valid event.
+     * @param type The type of the event, one of the event types of the Simulator
+     * @param time The time of the event
+     */
+    public void event(int type, double time) {
+        simulationTime = time;
+        switch (type) {
+            case Simulator.PARTICLE:
+                particleEvents++;
+                break;
+            case Simulator.VERTICAL_WALL:
+                verticalWallEvents++;
+                break;
+            case Simulator.HORIZONTAL_WALL:
+                horizontalWallEvents++;
+                break;
+            case Simulator.CELL:
+                cellEvents++;
+                break;
+            case Simulator.REPREDICT:
+                repredictEvents++;
+                break;
+            default:
+                redrawEvents++;
+        }
+    }
+
+    /**
+     * Count an event that failed isValid().
+     */
+    public void invalid() {
+        invalidEvents++;
+    }
+
+    /**
+     * Record the current size of the queue.
+     * @param size The number of events in the queue
+     */
+    public void queue(int size) {
+        queueSize = size;
+        if (size > peakQueueSize) peakQueueSize = size;
+    }
+
+    /**
+     * Record the current prediction horizon.
+     * @param horizon How far ahead the events are predicted
+     */
+    public void horizon(double horizon) {
+        this.horizon = horizon;
+    }
+
+    /**
+     * Add time spent moving particles.
+     * @param nanos The time in nanoseconds
+     */
+    public void move(long nanos) {
+        moveNanos += nanos;
+    }
+
+    /**
+     * Add time spent predicting events.
+     * @param nanos The time in nanoseconds
+     */
+    public void predict(long nanos) {
+        predictNanos += nanos;
+    }
+
+    /**
+     * Add time spent drawing.
+     * @param nanos The time in nanoseconds
+     */
+    public void draw(long nanos) {
+        drawNanos += nanos;
+    }
+
+    /**
+     * Register the metrics with the platform MBean server under OBJECT_NAME.
+     * @throws IllegalStateException when the MBean cannot be registered, for example
+     *         because another simulator already registered its metrics
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(this, new ObjectName(OBJECT_NAME));
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot register the metrics MBean", e);
+        }
+    }
+
+    /**
+     * Remove the metrics from the platform MBean server, nothing happens if they are not registered.
+     */
+    public void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name))
+                server.unregisterMBean(name);
+        }
+        catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister the metrics MBean", e);
+        }
+    }
+
+    /**
+     * Print a log line with the metrics at a fixed rate on a daemon thread.
+     * @param seconds The number of seconds between 2 lines
+     * @param out Where the lines are printed
+     * @throws IllegalArgumentException when the period is not positive or the stream is null
+     */
+    public synchronized void startLogging(double seconds, PrintStream out) {
+        if (!(seconds > 0))
+            throw new IllegalArgumentException("Period must be positive");
+        if (out == null)
+            throw new IllegalArgumentException("Stream cannot be null");
+
+        stopLogging();
+        logger = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "simulator-metrics");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // In nanoseconds, so a period shorter than a millisecond is not truncated to 0
+        long period = Math.max(1, Math.round(seconds * 1e9));
+        logger.scheduleAtFixedRate(() -> out.println(this), period, period, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Stop printing the log line.
+     */
+    public synchronized void stopLogging() {
+        if (logger != null) {
+            logger.shutdown();
+            logger = null;
+        }
+    }
+
+    @Override
+    public double getSimulationTime() {
+        return simulationTime;
+    }
+
+    @Override
+    public double getElapsedSeconds() {
+        return start == 0 ? 0 : (System.nanoTime() - start) / 1e9;
+    }
+
+    @Override
+    public long getEvents() {
+        return particleEvents + verticalWallEvents + horizontalWallEvents;
+    }
+
+    @Override
+    public long getParticleEvents() {
+        return particleEvents;
+    }
+
+    @Override
+    public long getVerticalWallEvents() {
+        return verticalWallEvents;
+    }
+
+    @Override
+    public long getHorizontalWallEvents() {
+        return horizontalWallEvents;
+    }
+
+    @Override
+    public long getCellEvents() {
+        return cellEvents;
+    }
+
+    @Override
+    public long getRepredictEvents() {
+        return repredictEvents;
+    }
+
+    @Override
+    public double getHorizon() {
+        return horizon;
+    }
+
+    @Override
+    public long getRedrawEvents() {
+        return redrawEvents;
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return rate(getEvents());
+    }
+
+    @Override
+    public double getParticleEventsPerSecond() {
+        return rate(particleEvents);
+    }
+
+    @Override
+    public double getVerticalWallEventsPerSecond() {
+        return rate(verticalWallEvents);
+    }
+
+    @Override
+    public double getHorizontalWallEventsPerSecond() {
+        return rate(horizontalWallEvents);
+    }
+
+    @Override
+    public double getRedrawEventsPerSecond() {
+        return rate(redrawEvents);
+    }
+
+    @Override
+    public long getInvalidEvents() {
+        return invalidEvents;
+    }
+
+    @Override
+    public double getInvalidEventRatio() {
+        long invalid = invalidEvents;
+        long total = getEvents() + cellEvents + repredictEvents + redrawEvents + invalid;
+        return total == 0 ? 0 : (double) invalid / total;
+    }
+
+    @Override
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    @Override
+    public int getPeakQueueSize() {
+        return peakQueueSize;
+    }
+
+    @Override
+    public long getMoveNanos() {
+        return moveNanos;
+    }
+
+    @Override
+    public long getPredictNanos() {
+        return predictNanos;
+    }
+
+    @Override
+    public long getDrawNanos() {
+        return drawNanos;
+    }
+
+    /**
+     * Returns a count per second of wall clock time since the start.
+     * @param count The count
+     * @return The rate of the count
+     */
+    private double rate(long count) {
+        double seconds = getElapsedSeconds();
+        return seconds == 0 ? 0 : count / seconds;
+    }
+
+    /**
+     * Returns the log line with all the metrics.
+     * @return The metrics in one line
+     */
+    @Override
+    public String toString() {
+        return String.format("t=%.1f events=%d (%.0f/s) particle=%.0f/s vwall=%.0f/s hwall=%.0f/s redraw=%.1f/s "
+                + "invalid=%.1f%% queue=%d peak=%d move=%dms predict=%dms draw=%dms",
+            getSimulationTime(), getEvents(), getEventsPerSecond(), getParticleEventsPerSecond(),
+            getVerticalWallEventsPerSecond(), getHorizontalWallEventsPerSecond(), getRedrawEventsPerSecond(),
+            100 * getInvalidEventRatio(), getQueueSize(), getPeakQueueSize(),
+            getMoveNanos() / 1000000, getPredictNanos() / 1000000, getDrawNanos() / 1000000);
+    }
+}
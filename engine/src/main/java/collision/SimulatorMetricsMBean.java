@@ -0,0 +1,141 @@
+/**
+ *  Purpose:        The management interface of SimulatorMetrics, shown by JConsole or any other
+ *                  JMX client under collision:type=Simulator.
+ */
+
+package collision;
+
+public interface SimulatorMetricsMBean {
+    /**
+     * Returns the simulation time reached so far.
+     * @return The simulation time reached so far
+     */
+    double getSimulationTime();
+
+    /**
+     * Returns the wall clock time since the simulation started, in seconds.
+     * @return The wall clock time since the simulation started, in seconds
+     */
+    double getElapsedSeconds();
+
+    /**
+     * Returns the number of physical events processed so far, the collisions with another
+     * particle or a wall. The cell, re-prediction and redraw events are counted on their own.
+     * @return The number of collisions processed so far
+     */
+    long getEvents();
+
+    /**
+     * Returns the number of particle-particle collisions so far.
+     * @return The number of particle-particle collisions so far
+     */
+    long getParticleEvents();
+
+    /**
+     * Returns the number of bounces off a vertical wall so far.
+     * @return The number of bounces off a vertical wall so far
+     */
+    long getVerticalWallEvents();
+
+    /**
+     * Returns the number of bounces off a horizontal wall so far.
+     * @return The number of bounces off a horizontal wall so far
+     */
+    long getHorizontalWallEvents();
+
+    /**
+     * Returns the number of grid cell crossings so far.
+     * @return The number of grid cell crossings so far
+     */
+    long getCellEvents();
+
+    /**
+     * Returns the number of particles that looked again at the end of the prediction horizon so far.
+     * @return The number of re-predictions at the horizon so far
+     */
+    long getRepredictEvents();
+
+    /**
+     * Returns how far ahead the events are currently predicted.
+     * @return The prediction horizon, infinity if there is none
+     */
+    double getHorizon();
+
+    /**
+     * Returns the number of redraws so far.
+     * @return The number of redraws so far
+     */
+    long getRedrawEvents();
+
+    /**
+     * Returns the physical events processed per second of wall clock time.
+     * @return The collisions processed per second of wall clock time
+     */
+    double getEventsPerSecond();
+
+    /**
+     * Returns the particle-particle collisions per second of wall clock time.
+     * @return The particle-particle collisions per second of wall clock time
+     */
+    double getParticleEventsPerSecond();
+
+    /**
+     * Returns the bounces off a vertical wall per second of wall clock time.
+     * @return The bounces off a vertical wall per second of wall clock time
+     */
+    double getVerticalWallEventsPerSecond();
+
+    /**
+     * Returns the bounces off a horizontal wall per second of wall clock time.
+     * @return The bounces off a horizontal wall per second of wall clock time
+     */
+    double getHorizontalWallEventsPerSecond();
+
+    /**
+     * Returns the redraws per second of wall clock time.
+     * @return The redraws per second of wall clock time
+     */
+    double getRedrawEventsPerSecond();
+
+    /**
+     * Returns the number of events that failed isValid() so far.
+     * @return The number of events that failed isValid() so far
+     */
+    long getInvalidEvents();
+
+    /**
+     * Returns the share of the events taken from the queue that failed isValid().
+     * @return The share of the events taken from the queue that failed isValid()
+     */
+    double getInvalidEventRatio();
+
+    /**
+     * Returns the current number of events in the queue.
+     * @return The current number of events in the queue
+     */
+    int getQueueSize();
+
+    /**
+     * Returns the largest number of events that were in the queue at once.
+     * @return The largest number of events that were in the queue at once
+     */
+    int getPeakQueueSize();
+
+    /**
+     * Returns the time spent moving particles, in nanoseconds.
+     * @return The time spent moving particles, in nanoseconds
+     */
+    long getMoveNanos();
+
+    /**
+     * Returns the time spent predicting events, in nanoseconds.
+     * @return The time spent predicting events, in nanoseconds
+     */
+    long getPredictNanos();
+
+    /**
+     * Returns the time spent drawing, in nanoseconds.
+     * @return The time spent drawing, in nanoseconds
+     */
+    long getDrawNanos();
+}
@@ -0,0 +1,245 @@
+/**
+ *  Purpose:        Physical observables of a running Simulator, updated at every event with a
+ *                  fixed number of fields and no history: the kinetic energy and temperature,
+ *                  the pressure on the walls, the collision frequency and the mean free path.
+ *                  The totals are updated as the velocities change, so each event costs O(1)
+ *                  and the particles are only summed once at the start.
+ *                  The simulation offers a sample at its redraw events. A sample is closed once
+ *                  it covers at least the given amount of simulation time, so every value is
+ *                  over the whole time since the previous sample, and can be printed as a line
+ *                  of text.
+ *                  The units are those of the simulation with the Boltzmann constant set to 1,
+ *                  in 2 dimensions the temperature is the mean kinetic energy per particle and
+ *                  the pressure is the force per unit length of the walls.
+ */
+
+package collision;
+
+import java.io.PrintStream;
+
+public class Statistics {
+    private int particles;  // The number of particles
+    private double perimeter;  // The total length of the walls
+
+    // The running totals over all the particles
+    private double energy;  // The kinetic energy
+    private double speed;  // The sum of the speeds
+    private double distance;  // The distance travelled by all the particles since the last sample
+    private double distanceTime;  // The simulation time distance was last brought up to
+
+    // The counts since the last sample
+    private long collisions;  // The number of particle-particle collisions
+    private double impulse;  // The momentum given to the walls
+    private double sampleTime;  // The simulation time of the last sample
+
+    // The state of the 2 particles of a collision before it, see before()
+    private double energyBefore, speedBefore;
+
+    // The values of the last sample
+    private double temperature, pressure, frequency, meanFreePath;
+
+    private PrintStream out;  // Where every sample is printed, null if it is not printed
+    private double every;  // The simulation time a sample covers at least
+    private double nextSample;  // The simulation time the current sample can be closed at
+
+    /**
+     * Create statistics that are not printed.
+     */
+    public Statistics() {
+        this(null, 0);
+    }
+
+    /**
+     * Create statistics whose samples cover at least the given amount of simulation time,
+     * each printed as a line when it is closed.
+     * @param out Where the lines are printed, or null to not print them
+     * @param every The simulation time a sample covers at least, 0 closes one at every redraw
+     * @throws IllegalArgumentException when the amount of time is negative
+     */
+    public Statistics(PrintStream out, double every) {
+        if (every < 0)
+            throw new IllegalArgumentException("Print interval cannot be negative");
+
+        this.out = out;
+        this.every = every;
+    }
+
+    /**
+     * Create the statistics asked for on the command line: --stats prints a line at every
+     * redraw and --stats-every=<time> only once every given amount of simulation time.
+     * @param args The command line arguments
+     * @return The statistics, or null if neither option is given
+     */
+    public static Statistics fromOptions(String[] args) {
+        String every = Options.get(args, "stats-every", null);
+        if (!Options.has(args, "--stats") && every == null)
+            return null;
+
+        return new Statistics(System.out, every == null ? 0 : Double.parseDouble(every));
+    }
+
+    /**
+     * Compute the totals from the particles, called once when the simulation starts.
+     * @param p The particles, all moved to the given time
+     * @param time The simulation time
+     * @param width The width of the canvas
+     * @param height The height of the canvas
+     */
+    void start(ParticleStore p, double time, int width, int height) {
+        particles = p.size();
+        perimeter = 2.0 * (width + height);
+        energy = p.kineticEnergy();
+        speed = 0;
+        for (int i = 0; i < particles; i++)
+            speed += speed(p, i);
+
+        distance = 0;
+        distanceTime = sampleTime = time;
+        nextSample = time + every;
+        collisions = 0;
+        impulse = 0;
+    }
+
+    /**
+     * Record the state of 2 particles that are about to collide, call after() once they did.
+     * @param p The particles
+     * @param a The first particle
+     * @param b The other particle
+     * @param time The time of the collision
+     */
+    void before(ParticleStore p, int a, int b, double time) {
+        advance(time);
+        energyBefore = energy(p, a) + energy(p, b);
+        speedBefore = speed(p, a) + speed(p, b);
+    }
+
+    /**
+     * Update the totals with the new velocities of 2 particles that collided.
+     * @param p The particles
+     * @param a The first particle
+     * @param b The other particle
+     */
+    void after(ParticleStore p, int a, int b) {
+        energy += energy(p, a) + energy(p, b) - energyBefore;
+        speed += speed(p, a) + speed(p, b) - speedBefore;
+        collisions++;
+    }
+
+    /**
+     * Record a particle that is about to bounce off a wall.
+     * @param p The particles
+     * @param a The particle
+     * @param vertical true for a vertical wall or false for a horizontal one
+     */
+    void wall(ParticleStore p, int a, boolean vertical) {
+        impulse += 2 * p.mass(a) * Math.abs(vertical ? p.vx(a) : p.vy(a));
+    }
+
+    /**
+     * Close the sample if it covers enough time: compute the values over the time since the
+     * last sample, print them and start a new one. Otherwise the sample goes on.
+     * @param time The simulation time
+     */
+    void sample(double time) {
+        advance(time);
+        if (time < nextSample) return;
+
+        double dt = time - sampleTime;
+        temperature = particles == 0 ? 0 : energy / particles;
+        if (dt > 0) {
+            pressure = impulse / (dt * perimeter);
+            frequency = particles == 0 ? 0 : 2 * collisions / (particles * dt);
+        }
+        meanFreePath = collisions == 0 ? Double.POSITIVE_INFINITY : distance / (2 * collisions);
+
+        sampleTime = time;
+        distance = 0;
+        collisions = 0;
+        impulse = 0;
+        nextSample = time + every;
+
+        if (out != null) out.println(this);
+    }
+
+    /**
+     * Add the distance travelled up to the given time, the speeds have not changed since.
+     * @param time The simulation time
+     */
+    private void advance(double time) {
+        distance += speed * (time - distanceTime);
+        distanceTime = time;
+    }
+
+    /**
+     * Returns the kinetic energy of a particle.
+     * @param p The particles
+     * @param i The particle
+     * @return The kinetic energy
+     */
+    private static double energy(ParticleStore p, int i) {
+        return 0.5 * p.mass(i) * (p.vx(i) * p.vx(i) + p.vy(i) * p.vy(i));
+    }
+
+    /**
+     * Returns the speed of a particle.
+     * @param p The particles
+     * @param i The particle
+     * @return The speed
+     */
+    private static double speed(ParticleStore p, int i) {
+        return Math.sqrt(p.vx(i) * p.vx(i) + p.vy(i) * p.vy(i));
+    }
+
+    /**
+     * Returns the total kinetic energy, kept up to date at every collision.
+     * @return The kinetic energy
+     */
+    public double energy() {
+        return energy;
+    }
+
+    /**
+     * Returns the temperature at the last sample, the mean kinetic energy per particle.
+     * @return The temperature
+     */
+    public double temperature() {
+        return temperature;
+    }
+
+    /**
+     * Returns the pressure over the last sample, the momentum given to the walls per unit
+     * of time and of wall length.
+     * @return The pressure
+     */
+    public double pressure() {
+        return pressure;
+    }
+
+    /**
+     * Returns the collision frequency over the last sample, the number of collisions with
+     * another particle per particle per unit of time.
+     * @return The collision frequency
+     */
+    public double frequency() {
+        return frequency;
+    }
+
+    /**
+     * Returns the mean free path over the last sample, the distance travelled between 2
+     * collisions with another particle.
+     * @return The mean free path, infinite if there was no collision
+     */
+    public double meanFreePath() {
+        return meanFreePath;
+    }
+
+    /**
+     * Returns the last sample as a line of text.
+     * @return The last sample
+     */
+    @Override
+    public String toString() {
+        return String.format("t=%.3f energy=%.6g temperature=%.6g pressure=%.6g frequency=%.6g mfp=%.6g",
+            sampleTime, energy, temperature, pressure, frequency, meanFreePath);
+    }
+}
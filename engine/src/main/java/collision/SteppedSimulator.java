@@ -0,0 +1,329 @@
+/**
+ *  Purpose:        A time-stepped alternative to the event-driven Simulator, meant for very
+ *                  dense systems where many collisions happen at once. Every step moves all the
+ *                  particles by a fixed amount of time, sorts them into the cells of a grid and
+ *                  bounces off every pair that overlaps with the same physics as the Simulator.
+ *                  Both the moving and the overlap detection run on a ForkJoinPool. The cells are
+ *                  split into 6 groups by column % 3 and row % 2, a cell only touches the
+ *                  particles of the cells to its right and below, so the cells of one group never
+ *                  share a particle and can be processed in parallel without locks. The result
+ *                  does not depend on the number of threads.
+ */
+
+package collision;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class SteppedSimulator {
+    public static final double DEFAULT_STEP = 0.1;  // Default amount of time per step
+    private static final int THRESHOLD = 256;  // The number of particles or cells a task handles alone
+
+    // The cells a cell checks besides itself, as column and row offsets: right, below left, below, below right
+    private static final int[] DC = { 1, -1, 0, 1 };
+    private static final int[] DR = { 0, 1, 1, 1 };
+
+    private ParticleStore particles;  // All the particles in the simulation
+    private Grid grid;  // Only the geometry of the grid is used, the particles are sorted below
+    private int[] cellOf;  // The cell of each particle in the current step
+    private int[] start;  // The particles of cell c are sorted[start[c]..start[c + 1] - 1]
+    private int[] sorted;  // The particles sorted by cell
+    private ForkJoinPool pool;  // Runs the tasks of every step
+    private double dt;  // The amount of time per step
+    private double time;  // The elapsed time the simulation had happend
+    private long steps;  // The number of steps processed so far
+    private long collisions;  // The number of bounces off particles and walls so far
+    private int frameWidth = Simulator.DEFAULT_SIZE, frameHeight = Simulator.DEFAULT_SIZE;  // Canvas size
+    private Renderer renderer;  // Shows the particles at every redraw
+    private FrameClock frames = new FrameClock();  // When the redraws happen and which frames are drawn
+
+    /**
+     * Create a time-stepped simulator with the given number of particles, all generated from
+     * the given random number generator in the same way as the Simulator does.
+     * @param pNum The number of particles
+     * @param renderer The renderer used at every redraw, use NullRenderer to run headless
+     * @param rand The random number generator used to create the particles
+     * @param dt The amount of time per step
+     * @param pool The pool that runs the steps, its parallelism decides the number of threads
+     * @throws IllegalArgumentException when the step is not positive or anything else is null
+     */
+    public SteppedSimulator(int pNum, Renderer renderer, Random rand, double dt, ForkJoinPool pool) {
+        this(RandomScenario.generate(pNum, rand), renderer, dt, pool);
+    }
+
+    /**
+     * Create a time-stepped simulator with the given particles, for example those of a Scenario.
+     * @param particles The particles, the simulator works on the store itself
+     * @param renderer The renderer used at every redraw, use NullRenderer to run headless
+     * @param dt The amount of time per step
+     * @param pool The pool that runs the steps, its parallelism decides the number of threads
+     * @throws IllegalArgumentException when the step is not positive or anything else is null
+     */
+    public SteppedSimulator(ParticleStore particles, Renderer renderer, double dt, ForkJoinPool pool) {
+        if (particles == null)
+            throw new IllegalArgumentException("Particles cannot be null");
+        if (renderer == null)
+            throw new IllegalArgumentException("Renderer cannot be null");
+        if (pool == null)
+            throw new IllegalArgumentException("Pool cannot be null");
+        if (!(dt > 0))
+            throw new IllegalArgumentException("Step must be positive");
+
+        int pNum = particles.size();
+        this.particles = particles;
+
+        // 2 particles can only overlap if their centers are closer than the largest diameter
+        double maxRadius = 0;
+        for (int i = 0; i < pNum; i++)
+            maxRadius = Math.max(maxRadius, particles.radius(i));
+
+        grid = new Grid(frameWidth, frameHeight, Math.max(1, 2 * maxRadius), 0);
+        cellOf = new int[pNum];
+        start = new int[grid.cols() * grid.rows() + 1];
+        sorted = new int[pNum];
+
+        this.renderer = renderer;
+        this.dt = dt;
+        this.pool = pool;
+        time = 0.0;
+        steps = 0;
+        collisions = 0;
+    }
+
+    /**
+     * Returns the number of steps processed so far.
+     * @return The number of steps
+     */
+    public long steps() {
+        return steps;
+    }
+
+    /**
+     * Returns the number of bounces off particles and walls so far.
+     * @return The number of collisions
+     */
+    public long collisions() {
+        return collisions;
+    }
+
+    /**
+     * Schedule the redraws with the given clock from now on, see Simulator.setFrameClock().
+     * @param frames The frame clock, it should not be shared with another simulation
+     * @throws IllegalArgumentException when the clock is null
+     */
+    public void setFrameClock(FrameClock frames) {
+        if (frames == null)
+            throw new IllegalArgumentException("Frame clock cannot be null");
+
+        this.frames = frames;
+    }
+
+    /**
+     * Starts the simulation with the given time limit
+     * @param limit The time limit for the simulation, simulation will stop after this amount of time.
+     */
+    public void simulate(double limit) {
+        double nextFrame = time;
+        frames.start();
+        while (time < limit) {
+            if (time >= nextFrame) {
+                if (frames.due())
+                    renderer.render(particles, time);
+                nextFrame += frames.next();
+            }
+            step();
+        }
+    }
+
+    /**
+     * Advance the simulation by one step.
+     */
+    private void step() {
+        collisions += pool.invoke(new Move(0, particles.size()));
+        time += dt;
+        steps++;
+
+        // Counting sort of the particles by cell
+        int cells = grid.cols() * grid.rows();
+        Arrays.fill(start, 0);
+        for (int i = 0; i < particles.size(); i++)
+            start[cellOf[i] + 1]++;
+        for (int c = 0; c < cells; c++)
+            start[c + 1] += start[c];
+        for (int i = 0; i < particles.size(); i++)
+            sorted[start[cellOf[i]]++] = i;
+        for (int c = cells; c > 0; c--)
+            start[c] = start[c - 1];
+        start[0] = 0;
+
+        // The groups one after another, the cells of each group in parallel
+        for (int group = 0; group < 6; group++) {
+            int colOffset = group % 3, rowOffset = group / 3;
+            int groupCols = (grid.cols() - colOffset + 2) / 3;
+            int groupRows = (grid.rows() - rowOffset + 1) / 2;
+            if (groupCols > 0 && groupRows > 0)
+                collisions += pool.invoke(new Resolve(colOffset, rowOffset, groupCols, 0, groupCols * groupRows));
+        }
+    }
+
+    /**
+     * Bounce off every overlapping pair of particles in a cell and the cells to its right and below.
+     * @param c The cell
+     * @return The number of bounces
+     */
+    private long resolve(int c) {
+        long bounces = 0;
+        int col = grid.col(c), row = grid.row(c);
+
+        for (int k = start[c]; k < start[c + 1]; k++) {
+            int i = sorted[k];
+            for (int l = k + 1; l < start[c + 1]; l++)
+                bounces += resolve(i, sorted[l]);
+
+            for (int n = 0; n < DC.length; n++) {
+                int other = grid.cellAt(col + DC[n], row + DR[n]);
+                if (other == Grid.NONE) continue;
+                for (int l = start[other]; l < start[other + 1]; l++)
+                    bounces += resolve(i, sorted[l]);
+            }
+        }
+
+        return bounces;
+    }
+
+    /**
+     * Bounce off 2 particles if they overlap and move towards each other. They are moved back
+     * to the moment they touched, bounced off and moved forward again with the new velocities.
+     * @param i The first particle
+     * @param j The other particle
+     * @return 1 if the particles bounced off or 0 otherwise
+     */
+    private int resolve(int i, int j) {
+        double back = particles.timeSinceHit(i, j);
+        if (back <= 0) return 0;
+
+        particles.move(i, -back);
+        particles.move(j, -back);
+        particles.bounceOff(i, j);
+        particles.move(i, back);
+        particles.move(j, back);
+        return 1;
+    }
+
+    /**
+     * Moves a range of particles by one step, bounces them off the walls and finds their new cells.
+     */
+    private class Move extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int lo, hi;  // The particles lo..hi - 1
+
+        Move(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            if (hi - lo > THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                Move left = new Move(lo, mid);
+                left.fork();
+                long right = new Move(mid, hi).compute();
+                return right + left.join();
+            }
+
+            long bounces = 0;
+            for (int i = lo; i < hi; i++) {
+                particles.move(i, dt);
+
+                double x = particles.x(i), y = particles.y(i), r = particles.radius(i);
+                if ((x < r && particles.vx(i) < 0) || (x > frameWidth - r && particles.vx(i) > 0)) {
+                    particles.bounceOffVerticalWall(i);
+                    bounces++;
+                }
+                if ((y < r && particles.vy(i) < 0) || (y > frameHeight - r && particles.vy(i) > 0)) {
+                    particles.bounceOffHorizontalWall(i);
+                    bounces++;
+                }
+
+                cellOf[i] = grid.cellOf(x, y);
+            }
+            return bounces;
+        }
+    }
+
+    /**
+     * Resolves the overlaps of a range of the cells in one group. The cells of a group are
+     * numbered row by row, cell k is at column colOffset + 3 * (k % groupCols) and
+     * row rowOffset + 2 * (k / groupCols).
+     */
+    private class Resolve extends RecursiveTask<Long> {
+        private static final long serialVersionUID = 1L;
+
+        private final int colOffset, rowOffset, groupCols;  // The group
+        private final int lo, hi;  // The cells lo..hi - 1 of the group
+
+        Resolve(int colOffset, int rowOffset, int groupCols, int lo, int hi) {
+            this.colOffset = colOffset;
+            this.rowOffset = rowOffset;
+            this.groupCols = groupCols;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected Long compute() {
+            // Split until a task holds about THRESHOLD particles or a single cell
+            int first = cell(lo), last = cell(hi - 1);
+            if (hi - lo > 1 && start[last + 1] - start[first] > THRESHOLD) {
+                int mid = (lo + hi) >>> 1;
+                Resolve left = new Resolve(colOffset, rowOffset, groupCols, lo, mid);
+                left.fork();
+                long right = new Resolve(colOffset, rowOffset, groupCols, mid, hi).compute();
+                return right + left.join();
+            }
+
+            long bounces = 0;
+            for (int k = lo; k < hi; k++)
+                bounces += resolve(cell(k));
+            return bounces;
+        }
+
+        /**
+         * Returns the grid cell of the k-th cell of the group
+         * @param k The position of the cell in the group
+         * @return The cell in the grid
+         */
+        private int cell(int k) {
+            return grid.cellAt(colOffset + 3 * (k % groupCols), rowOffset + 2 * (k / groupCols));
+        }
+    }
+
+    // Test client, runs the simulation headless and reports the step throughput.
+    // The step is set with --dt and the number of threads with --threads, the particles
+    // come from --seed or --scenario like in the Simulator
+    public static void main(String[] args) {
+        if (args.length < 2)
+            System.out.println("Please specify the number of particles and the simulation time");
+        else {
+            int pNum = Integer.parseInt(args[0]);
+            double limit = Double.parseDouble(args[1]);
+            double dt = Double.parseDouble(Options.get(args, "dt", String.valueOf(DEFAULT_STEP)));
+            int threads = Integer.parseInt(Options.get(args, "threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            SteppedSimulator simulator = new SteppedSimulator(Simulator.load(args, pNum), new NullRenderer(), dt, pool);
+            simulator.setFrameClock(FrameClock.fromOptions(args, false));
+            long start = System.nanoTime();
+            simulator.simulate(limit);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+            System.out.printf("%d steps, %d collisions in %.3f s on %d threads (%.0f steps/s)%n",
+                simulator.steps(), simulator.collisions(), seconds, threads, simulator.steps() / seconds);
+        }
+    }
+}
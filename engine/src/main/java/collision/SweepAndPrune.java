@@ -0,0 +1,124 @@
+/**
+ *  Purpose:        A sweep-and-prune broad phase for particles of any radius. Every particle
+ *                  has a box along the x-axis: its interval [x - r, x + r] widened by a margin
+ *                  on both sides, around the position it had when the box was last placed.
+ *                  The particles are kept sorted by the left end of their box, so the boxes that
+ *                  overlap a particle's box are found by scanning its neighbours in that order.
+ *                  2 particles can only touch while their boxes overlap. A particle keeps its
+ *                  box until it has moved by the margin, then the box is placed again around it
+ *                  and moved to its new place in the order by insertion sort, which only takes
+ *                  a few swaps because the particles move little between 2 placements.
+ */
+
+package collision;
+
+import java.util.Arrays;
+
+public class SweepAndPrune {
+    private double margin;  // The amount a particle can move before its box is placed again
+    private int size;  // The number of particles
+    private int[] order;  // The particles sorted by the left end of their box
+    private int[] rank;  // The position of each particle in order
+    private double[] lo, hi;  // The left and right end of the box of each particle
+    private double[] center;  // The position of each particle when its box was placed
+    private double maxWidth;  // The widest box, bounds how far to the left an overlapping box can start
+
+    /**
+     * Create a broad phase that holds all the given particles, with a box around the
+     * current position of each of them.
+     * @param particles The particles
+     * @param margin The amount a particle can move before its box is placed again
+     * @throws IllegalArgumentException when the margin is not positive
+     */
+    public SweepAndPrune(ParticleStore particles, double margin) {
+        if (!(margin > 0))
+            throw new IllegalArgumentException("Margin must be positive");
+
+        this.margin = margin;
+        size = particles.size();
+        lo = new double[size];
+        hi = new double[size];
+        center = new double[size];
+        rank = new int[size];
+        for (int i = 0; i < size; i++) {
+            center[i] = particles.x(i);
+            lo[i] = center[i] - particles.radius(i) - margin;
+            hi[i] = center[i] + particles.radius(i) + margin;
+            maxWidth = Math.max(maxWidth, hi[i] - lo[i]);
+        }
+
+        // One full sort to start with, from then on the order is only repaired
+        Integer[] sorted = new Integer[size];
+        for (int i = 0; i < size; i++)
+            sorted[i] = i;
+        Arrays.sort(sorted, (a, b) -> Double.compare(lo[a], lo[b]));
+        order = new int[size];
+        for (int k = 0; k < size; k++) {
+            order[k] = sorted[k];
+            rank[order[k]] = k;
+        }
+    }
+
+    /**
+     * Place the box of a particle around its current position and move it to its place in the order.
+     * @param i The particle
+     * @param x The current x-coordinate of the particle
+     * @param r The radius of the particle
+     */
+    public void update(int i, double x, double r) {
+        center[i] = x;
+        lo[i] = x - r - margin;
+        hi[i] = x + r + margin;
+
+        // Insertion sort of a single item, swapping it with its neighbours until it fits
+        int k = rank[i];
+        while (k > 0 && lo[order[k - 1]] > lo[i]) {
+            order[k] = order[k - 1];
+            rank[order[k]] = k;
+            k--;
+        }
+        while (k < size - 1 && lo[order[k + 1]] < lo[i]) {
+            order[k] = order[k + 1];
+            rank[order[k]] = k;
+            k++;
+        }
+        order[k] = i;
+        rank[i] = k;
+    }
+
+    /**
+     * Add every particle whose box overlaps the box of the given particle to a batch.
+     * @param i The particle
+     * @param batch The batch the particles are added to
+     */
+    public void gather(int i, HitBatch batch) {
+        int k = rank[i];
+
+        // The boxes to the left start earlier, they overlap if they end after this one starts
+        for (int m = k - 1; m >= 0 && lo[order[m]] >= lo[i] - maxWidth; m--)
+            if (hi[order[m]] >= lo[i])
+                batch.add(order[m]);
+
+        // The boxes to the right overlap as long as they start before this one ends
+        for (int m = k + 1; m < size && lo[order[m]] <= hi[i]; m++)
+            batch.add(order[m]);
+    }
+
+    /**
+     * Calculate the amount of time until a particle has moved by the margin from the position
+     * its box was placed at.
+     * @param i The particle
+     * @param x The current x-coordinate of the particle
+     * @param vx The horizontal velocity of the particle
+     * @return The amount of time, 0 if it already moved that far or infinity if it does not move
+     */
+    public double timeToLeave(int i, double x, double vx) {
+        double t = Double.POSITIVE_INFINITY;
+        if (vx > 0)
+            t = (center[i] + margin - x) / vx;
+        else if (vx < 0)
+            t = (center[i] - margin - x) / vx;
+
+        return Math.max(0.0, t);
+    }
+}
@@ -0,0 +1,97 @@
+/**
+ *  Purpose:        Checks that a Checkpoint read back from its file holds the same state as the
+ *                  one written, and that a run resumed from it ends exactly like a run that
+ *                  never stopped.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class CheckpointTest {
+    @TempDir
+    Path dir;  // Where the checkpoints are written
+
+    @Test
+    void readGivesTheWrittenState() throws IOException {
+        Simulator simulator = new Simulator(SimulatorTest.lattice(20, 5), new NullRenderer(), Scheduler.HEAP);
+        simulator.simulate(150);
+        Checkpoint written = simulator.checkpoint();
+        Path file = dir.resolve("run.bin");
+        written.write(file);
+        Checkpoint read = Checkpoint.read(file);
+
+        assertEquals(written.time, read.time);
+        assertEquals(written.limit, read.limit);
+        assertEquals(written.processed, read.processed);
+        assertEquals(written.size(), read.size());
+        for (int i = 0; i < written.size(); i++) {
+            assertEquals(written.particles.x(i), read.particles.x(i));
+            assertEquals(written.particles.y(i), read.particles.y(i));
+            assertEquals(written.particles.vx(i), read.particles.vx(i));
+            assertEquals(written.particles.vy(i), read.particles.vy(i));
+            assertEquals(written.particles.radius(i), read.particles.radius(i));
+            assertEquals(written.particles.mass(i), read.particles.mass(i));
+            assertEquals(written.particles.time(i), read.particles.time(i));
+            assertEquals(written.particles.count(i), read.particles.count(i));
+            assertEquals(written.particles.color(i), read.particles.color(i));
+        }
+        assertArrayEquals(written.cells, read.cells);
+        assertArrayEquals(written.eventIndex, read.eventIndex);
+        assertArrayEquals(written.eventTime, read.eventTime);
+        assertArrayEquals(written.eventType, read.eventType);
+        assertArrayEquals(written.eventOther, read.eventOther);
+        assertArrayEquals(written.eventCountA, read.eventCountA);
+        assertArrayEquals(written.eventCountB, read.eventCountB);
+    }
+
+    @Test
+    void resumedRunEndsLikeUninterrupted() throws IOException {
+        ParticleStore expected = SimulatorTest.lattice(20, 6);
+        Simulator uninterrupted = new Simulator(expected, new NullRenderer(), Scheduler.HEAP);
+        uninterrupted.simulate(400);
+
+        Path file = dir.resolve("run.bin");
+        Simulator stopped = new Simulator(SimulatorTest.lattice(20, 6), new NullRenderer(), Scheduler.HEAP);
+        stopped.setCheckpoint(file, 100);
+        stopped.simulate(400);
+
+        Checkpoint checkpoint = Checkpoint.read(file);
+        assertTrue(checkpoint.time() > 0 && checkpoint.time() < 400);
+        Simulator resumed = Simulator.restore(checkpoint, new NullRenderer(), Scheduler.HEAP, false);
+        resumed.simulate(400);
+
+        assertEquals(uninterrupted.events(), resumed.events());
+        for (int i = 0; i < expected.size(); i++) {
+            expected.moveTo(i, 400);
+            checkpoint.particles.moveTo(i, 400);
+            assertEquals(expected.x(i), checkpoint.particles.x(i));
+            assertEquals(expected.y(i), checkpoint.particles.y(i));
+            assertEquals(expected.vx(i), checkpoint.particles.vx(i));
+            assertEquals(expected.vy(i), checkpoint.particles.vy(i));
+        }
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        Simulator simulator = new Simulator(SimulatorTest.lattice(5, 7), new NullRenderer(), Scheduler.HEAP);
+        simulator.simulate(10);
+        Path file = dir.resolve("run.bin");
+        simulator.checkpoint().write(file);
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> Checkpoint.read(file));
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ *  Purpose:        Checks that an Ensemble gives the same report whatever the number of threads,
+ *                  apart from the wall times, and that every run conserves the energy.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EnsembleTest {
+    @TempDir
+    Path dir;  // Where the reports are written
+
+    /**
+     * Run a sweep and return its report without the columns of the wall time.
+     * @param runs The runs
+     * @param threads The number of runs at the same time
+     * @return The lines of the report, without the seconds and events per second
+     * @throws IOException when the report cannot be written or read
+     */
+    private List<String> report(List<Ensemble.Run> runs, int threads) throws IOException {
+        List<Ensemble.Result> results = new Ensemble(Scheduler.HEAP, threads).execute(runs);
+        for (Ensemble.Result r : results)
+            assertEquals(r.initialEnergy, r.finalEnergy, r.initialEnergy * 1e-9);
+
+        Path file = dir.resolve("report-" + threads + ".csv");
+        Ensemble.report(results, file);
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            String[] columns = line.split(",");
+            columns[5] = columns[6] = "";
+            lines.add(String.join(",", columns));
+        }
+        return lines;
+    }
+
+    @Test
+    void reportDoesNotDependOnThreads() throws IOException {
+        List<Ensemble.Run> runs = Ensemble.sweep(new int[] {100, 300}, new double[] {5, 10},
+            new double[] {100}, 2, 21);
+        assertEquals(8, runs.size());
+
+        List<String> one = report(runs, 1);
+        assertEquals(runs.size() + 1, one.size());
+        assertEquals(one, report(runs, 4));
+    }
+
+    @Test
+    void sweepDrawsDistinctSeeds() {
+        List<Ensemble.Run> runs = Ensemble.sweep(new int[] {100}, new double[] {5}, new double[] {10}, 3, 22);
+        assertEquals(runs.size(), runs.stream().mapToLong(r -> r.seed).distinct().count());
+        assertTrue(runs.stream().allMatch(r -> r.particles == 100 && r.radius == 5 && r.limit == 10));
+    }
+}
@@ -0,0 +1,85 @@
+/**
+ *  Purpose:        Checks that the records appended to an EventLog reach the file through the
+ *                  drain thread whole and in order, and that a full ring buffer drops and counts
+ *                  records instead of waiting.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class EventLogTest {
+    private static final int HEADER_BYTES = 4 * Integer.BYTES;  // The size of the file header
+
+    @TempDir
+    Path dir;  // Where the logs are written
+
+    @Test
+    void everyAppendedRecordIsWritten() throws IOException {
+        Path file = dir.resolve("events.bin");
+        int records = 100000;
+        EventLog log = new EventLog(file, 64);
+        for (int k = 0; k < records; k++) {
+            if (!log.append(k, Simulator.PARTICLE, k, k + 1, k * 0.5, -k, 1.0 / (k + 1), 0))
+                Thread.yield();  // Gives the drain thread a chance while the buffer is full
+        }
+        log.close();
+
+        assertEquals(records, log.appended() + log.dropped());
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(file));
+        assertEquals(HEADER_BYTES + log.appended() * EventLog.RECORD_BYTES, buf.capacity());
+
+        // Each record is whole and the records keep the order they were appended in
+        buf.position(HEADER_BYTES);
+        double last = -1;
+        while (buf.hasRemaining()) {
+            double time = buf.getDouble();
+            int k = (int) time;
+            assertTrue(time > last);
+            last = time;
+            assertEquals(Simulator.PARTICLE, buf.getInt());
+            assertEquals(k, buf.getInt());
+            assertEquals(k + 1, buf.getInt());
+            assertEquals(0, buf.getInt());
+            assertEquals(k * 0.5, buf.getDouble());
+            assertEquals(-k, buf.getDouble());
+            assertEquals(1.0 / (k + 1), buf.getDouble());
+            assertEquals(0, buf.getDouble());
+        }
+    }
+
+    @Test
+    void fullBufferDropsRecords() throws IOException {
+        EventLog log = new EventLog(dir.resolve("events.bin"), 4);
+        int appended = 0;
+        for (int k = 0; k < 1000; k++)
+            if (log.append(k, Simulator.VERTICAL_WALL, k, Simulator.NONE, 1, 1, 0, 0)) appended++;
+        log.close();
+
+        assertEquals(appended, log.appended());
+        assertEquals(1000 - appended, log.dropped());
+    }
+
+    @Test
+    void simulationLogsEveryCollision() throws IOException {
+        Path file = dir.resolve("events.bin");
+        Simulator simulator = new Simulator(SimulatorTest.lattice(10, 9), new NullRenderer(), Scheduler.HEAP);
+        EventLog log = new EventLog(file);
+        simulator.setEventLog(log);
+        simulator.simulate(200);
+        log.close();
+
+        assertEquals(0, log.dropped());
+        assertEquals(simulator.events(), log.appended());
+        assertEquals(HEADER_BYTES + log.appended() * EventLog.RECORD_BYTES, Files.size(file));
+    }
+}
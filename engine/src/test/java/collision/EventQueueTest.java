@@ -0,0 +1,78 @@
+/**
+ *  Purpose:        Checks that HeapEventQueue and CalendarEventQueue give the events back in the
+ *                  same order, with the same details, for the same operations. The operations
+ *                  follow the simulation: the earliest event is removed and the events that are
+ *                  set again never happen before it.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class EventQueueTest {
+    private static final int CAPACITY = 1000;  // The number of indices
+
+    @Test
+    void heapAndCalendarAgree() {
+        EventQueue heap = Scheduler.HEAP.create(CAPACITY), calendar = Scheduler.CALENDAR.create(CAPACITY);
+        Random rand = new Random(4);
+        for (int i = 0; i < CAPACITY; i++) {
+            double t = rand.nextDouble() * 100;
+            heap.set(i, t, i % 6, i + 1, i, -i);
+            calendar.set(i, t, i % 6, i + 1, i, -i);
+        }
+
+        double now = 0;
+        for (int step = 0; step < 100000; step++) {
+            assertEquals(heap.size(), calendar.size());
+            int op = rand.nextInt(10);
+            int i = rand.nextInt(CAPACITY);
+
+            if (op < 6 && !heap.isEmpty()) {
+                int a = heap.remove(), b = calendar.remove();
+                assertEquals(a, b);
+                assertTrue(heap.time(a) >= now);
+                now = heap.time(a);
+                assertEquals(heap.time(a), calendar.time(b));
+                assertEquals(heap.type(a), calendar.type(b));
+                assertEquals(heap.other(a), calendar.other(b));
+                assertEquals(heap.countA(a), calendar.countA(b));
+                assertEquals(heap.countB(a), calendar.countB(b));
+            }
+            else if (op < 9) {
+                // A new prediction, sometimes far ahead as after a long horizon
+                double t = now + rand.nextDouble() * (rand.nextInt(20) == 0 ? 1000 : 10);
+                heap.set(i, t, op, step, i, step);
+                calendar.set(i, t, op, step, i, step);
+            }
+            else if (heap.contains(i)) {
+                assertTrue(calendar.contains(i));
+                heap.delete(i);
+                calendar.delete(i);
+            }
+            else
+                assertFalse(calendar.contains(i));
+        }
+
+        while (!heap.isEmpty())
+            assertEquals(heap.remove(), calendar.remove());
+        assertTrue(calendar.isEmpty());
+    }
+
+    @Test
+    void emptyQueueHasNoMinimum() {
+        for (Scheduler scheduler : Scheduler.values()) {
+            EventQueue pq = scheduler.create(CAPACITY);
+            assertThrows(NoSuchElementException.class, pq::remove);
+            assertThrows(IllegalArgumentException.class, () -> pq.delete(0));
+        }
+    }
+}
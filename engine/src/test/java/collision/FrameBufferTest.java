@@ -0,0 +1,84 @@
+/**
+ *  Purpose:        Checks that a FrameBuffer hands the latest frame over to the drawing thread,
+ *                  counts the frames that were replaced before they were taken, and never gives
+ *                  the drawing thread a frame the simulation thread is still writing.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class FrameBufferTest {
+    /**
+     * Returns particles that all sit at the given position, so a frame that mixes 2 snapshots
+     * can be told apart.
+     * @param particles The particles
+     * @param position Both coordinates of every particle
+     * @return The particles
+     */
+    private static ParticleStore at(ParticleStore particles, double position) {
+        for (int i = 0; i < particles.size(); i++)
+            particles.restore(i, position, position, 0, 0, 0);
+        return particles;
+    }
+
+    @Test
+    void latestFrameIsTaken() {
+        FrameBuffer buffer = new FrameBuffer();
+        ParticleStore particles = SimulatorTest.lattice(3, 10);
+        assertNull(buffer.take());
+
+        buffer.render(at(particles, 1), 1);
+        Frame frame = buffer.take();
+        assertNotNull(frame);
+        assertEquals(1, frame.number());
+        assertEquals(1, frame.time());
+        assertEquals(particles.size(), frame.size());
+        assertEquals(1, frame.x(0));
+        assertNull(buffer.take());
+
+        buffer.render(at(particles, 2), 2);
+        buffer.render(at(particles, 3), 3);
+        frame = buffer.take();
+        assertEquals(3, frame.number());
+        assertEquals(3, frame.x(particles.size() - 1));
+        assertEquals(3, buffer.published());
+        assertEquals(1, buffer.dropped());
+        assertNull(buffer.take());
+    }
+
+    @Test
+    void framesAreNeverTorn() throws InterruptedException {
+        FrameBuffer buffer = new FrameBuffer();
+        int frames = 20000;
+
+        Thread simulation = new Thread(() -> {
+            ParticleStore particles = SimulatorTest.lattice(10, 11);
+            for (int k = 1; k <= frames; k++)
+                buffer.render(at(particles, k), k);
+        });
+
+        long taken = 0, last = 0;
+        simulation.start();
+        while (simulation.isAlive() || last < frames) {
+            Frame frame = buffer.take();
+            if (frame == null) continue;
+            assertTrue(frame.number() > last, "Frames taken out of order");
+            assertEquals(frame.number(), frame.time());
+            for (int i = 0; i < frame.size(); i++)
+                assertEquals(frame.time(), frame.x(i), "Frame mixes 2 snapshots");
+            last = frame.number();
+            taken++;
+        }
+        simulation.join();
+
+        assertEquals(frames, last);
+        assertEquals(frames, buffer.published());
+        assertEquals(frames, taken + buffer.dropped());
+    }
+}
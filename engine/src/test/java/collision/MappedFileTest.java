@@ -0,0 +1,60 @@
+/**
+ *  Purpose:        Checks that a MappedFile with a window much smaller than the file reads back
+ *                  what it wrote, with values and arrays split at the ends of the windows.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class MappedFileTest {
+    private static final int WINDOW = 100;  // Not a multiple of 8, so the doubles are split too
+
+    @TempDir
+    Path dir;  // Where the file is written
+
+    @Test
+    void readGivesWhatWasWritten() throws IOException {
+        Random rand = new Random(8);
+        double[] doubles = rand.doubles(1000).toArray();
+        int[] ints = rand.ints(777).toArray();
+        long size = Integer.BYTES + doubles.length * Double.BYTES + ints.length * Integer.BYTES + Long.BYTES;
+        Path file = dir.resolve("data.bin");
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedFile out = new MappedFile(channel, FileChannel.MapMode.READ_WRITE, size, WINDOW);
+            out.buffer(Integer.BYTES).putInt(42);
+            out.put(doubles, doubles.length);
+            out.put(ints, ints.length);
+            out.buffer(Long.BYTES).putLong(-1L);
+            out.force();
+        }
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            assertEquals(size, channel.size());
+            MappedFile in = new MappedFile(channel, FileChannel.MapMode.READ_ONLY, channel.size(), WINDOW);
+            assertEquals(42, in.buffer(Integer.BYTES).getInt());
+            double[] d = new double[doubles.length];
+            in.get(d);
+            int[] k = new int[ints.length];
+            in.get(k);
+            assertEquals(-1L, in.buffer(Long.BYTES).getLong());
+
+            assertArrayEquals(doubles, d);
+            assertArrayEquals(ints, k);
+            assertThrows(IOException.class, () -> in.buffer(1));
+        }
+    }
+}
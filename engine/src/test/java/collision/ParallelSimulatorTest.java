@@ -0,0 +1,94 @@
+/**
+ *  Purpose:        Checks that the ParallelSimulator processes the same events as the serial
+ *                  Simulator, whatever the number of regions. A rolled back particle is
+ *                  predicted again from the time of the rollback, which changes the last bits of
+ *                  its position, and the motion is chaotic, so the runs are only compared exactly
+ *                  over the first collisions. Longer runs are checked for the physics.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class ParallelSimulatorTest {
+    private static final double EXACT = 10;  // The time limit the runs give exactly the same events up to
+
+    /**
+     * Run particles on the parallel simulator with its own pool.
+     * @param particles The particles, moved by the run
+     * @param renderer The renderer used at every redraw
+     * @param threads The parallelism of the pool, which decides the number of regions
+     * @param limit The time limit
+     * @return The simulator at the end of the run
+     */
+    private static ParallelSimulator run(ParticleStore particles, Renderer renderer, int threads, double limit) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            ParallelSimulator parallel = new ParallelSimulator(particles, renderer, Scheduler.HEAP, pool);
+            parallel.simulate(limit);
+            return parallel;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void sameEventsAsSerial() {
+        ParticleStore expected = SimulatorTest.lattice(20, 15);
+        Simulator serial = new Simulator(expected, new NullRenderer(), Scheduler.HEAP);
+        serial.simulate(EXACT);
+
+        for (int threads : new int[] {1, 2, 4}) {
+            ParticleStore actual = SimulatorTest.lattice(20, 15);
+            ParallelSimulator parallel = run(actual, new NullRenderer(), threads, EXACT);
+            assertEquals(threads, parallel.regions());
+            if (threads > 1)
+                assertTrue(parallel.rollbacks() > 0, "No boundary event was rolled back");
+
+            assertEquals(serial.events(), parallel.events(), "With " + threads + " regions");
+            for (int i = 0; i < expected.size(); i++) {
+                expected.moveTo(i, EXACT);
+                actual.moveTo(i, EXACT);
+                assertEquals(expected.x(i), actual.x(i), SimulatorTest.TOLERANCE);
+                assertEquals(expected.y(i), actual.y(i), SimulatorTest.TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    void singleRegionMatchesSerialExactly() {
+        ParticleStore expected = new RandomScenario(1000, 16).load(), actual = new RandomScenario(1000, 16).load();
+        Simulator serial = new Simulator(expected, new NullRenderer(), Scheduler.HEAP);
+        serial.simulate(100);
+        ParallelSimulator parallel = run(actual, new NullRenderer(), 1, 100);
+
+        assertEquals(serial.events(), parallel.events());
+        for (int i = 0; i < expected.size(); i++) {
+            expected.moveTo(i, 100);
+            actual.moveTo(i, 100);
+            assertEquals(expected.x(i), actual.x(i));
+            assertEquals(expected.y(i), actual.y(i));
+        }
+    }
+
+    @Test
+    void regionsKeepThePhysics() {
+        Simulator serial = new Simulator(SimulatorTest.lattice(15, 17), new NullRenderer(), Scheduler.HEAP);
+        serial.simulate(300);
+
+        ParticleStore particles = SimulatorTest.lattice(15, 17);
+        double before = particles.kineticEnergy();
+        SimulatorTest.Checker checker = new SimulatorTest.Checker();
+        ParallelSimulator parallel = run(particles, checker, 4, 300);
+
+        assertTrue(checker.frames > 100);
+        assertEquals(before, particles.kineticEnergy(), before * 1e-9);
+        assertEquals(serial.events(), parallel.events(), serial.events() * 0.05);
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ *  Purpose:        Checks the collision times of ParticleStore and HitBatch: both give exactly
+ *                  the same times, and a pair that touches while only grazing never hits, so
+ *                  the simulation cannot get stuck bouncing it again and again at one moment.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class ParticleStoreTest {
+    /**
+     * Returns 2 particles that touch exactly, the second one moving towards the first
+     * with a speed along the line between them far below the rounding of the velocities.
+     * @return The particles
+     */
+    private static ParticleStore touching() {
+        ParticleStore particles = new ParticleStore(2);
+        particles.add(100, 100, 0, 0, 10, 1, 0);
+        particles.add(120, 100, -1e-20, 3, 10, 1, 0);
+        return particles;
+    }
+
+    @Test
+    void grazingPairNeverHits() {
+        ParticleStore particles = touching();
+        assertEquals(Double.POSITIVE_INFINITY, particles.timeToHit(0, 1));
+        assertEquals(Double.POSITIVE_INFINITY, particles.timeToHit(1, 0));
+
+        HitBatch batch = new HitBatch();
+        batch.add(0);
+        batch.add(1);
+        assertEquals(Grid.NONE, batch.earliest(particles, 1));
+    }
+
+    @Test
+    void grazingPairsDoNotStopTheSimulation() {
+        // With this seed 2 particles used to touch while grazing at time 1 and hit each other
+        // again and again at that moment
+        Simulator simulator = new Simulator(new RandomScenario(2000, 1).load(), new NullRenderer(), Scheduler.HEAP);
+        assertTimeoutPreemptively(Duration.ofSeconds(30), () -> simulator.simulate(20));
+        assertTrue(simulator.events() > 0);
+    }
+
+    @Test
+    void batchGivesTheSameTimesAsPairs() {
+        ParticleStore particles = SimulatorTest.lattice(10, 12);
+        Random rand = new Random(12);
+        for (int i = 0; i < particles.size(); i++)
+            particles.restore(i, particles.x(i) + rand.nextGaussian() * 5, particles.y(i) + rand.nextGaussian() * 5,
+                particles.vx(i), particles.vy(i), rand.nextDouble());
+
+        HitBatch batch = new HitBatch();
+        for (int j = 0; j < particles.size(); j++)
+            batch.add(j);
+        for (int i = 0; i < particles.size(); i++) {
+            batch.compute(particles, i);
+            for (int k = 0; k < batch.size(); k++)
+                assertEquals(particles.timeToHit(i, batch.candidate(k)), batch.time(k));
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ *  Purpose:        Checks that the SimulatorMetrics log line is printed at any positive period,
+ *                  including periods shorter than a millisecond.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Test;
+
+class SimulatorMetricsTest {
+    @Test
+    void shortPeriodIsLogged() throws InterruptedException {
+        SimulatorMetrics metrics = new SimulatorMetrics();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        PrintStream out = new PrintStream(bytes, true);
+        metrics.start();
+        metrics.startLogging(0.0005, out);
+        Thread.sleep(200);
+        metrics.stopLogging();
+
+        assertTrue(bytes.size() > 0, "Nothing was logged");
+    }
+
+    @Test
+    void periodMustBePositive() {
+        SimulatorMetrics metrics = new SimulatorMetrics();
+        assertThrows(IllegalArgumentException.class, () -> metrics.startLogging(0, System.out));
+        assertThrows(IllegalArgumentException.class, () -> metrics.startLogging(Double.NaN, System.out));
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ *  Purpose:        Checks the physics of the event-driven Simulator: the kinetic energy is kept by
+ *                  every collision, the particles never overlap or leave the canvas, and the
+ *                  result does not depend on the event queue.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+class SimulatorTest {
+    static final double TOLERANCE = 1e-6;  // How far the positions may be off from rounding
+
+    /**
+     * Returns particles on a square lattice with random velocities, radii and masses, so that
+     * no 2 of them overlap at the start.
+     * @param side The number of particles on each side of the lattice
+     * @param seed The seed of the random number generator
+     * @return The particles
+     */
+    static ParticleStore lattice(int side, long seed) {
+        Random rand = new Random(seed);
+        double spacing = (double) Simulator.DEFAULT_SIZE / side;
+        ParticleStore particles = new ParticleStore(side * side);
+        for (int row = 0; row < side; row++)
+            for (int col = 0; col < side; col++)
+                particles.add((col + 0.5) * spacing, (row + 0.5) * spacing,
+                    rand.nextDouble() * 10 - 5, rand.nextDouble() * 10 - 5,
+                    2 + rand.nextDouble() * spacing / 4, 0.5 + rand.nextDouble() * 2, Particle.DEFAULT_COLOR);
+        return particles;
+    }
+
+    /**
+     * A renderer that checks at every redraw that no 2 particles overlap and that every
+     * particle is inside the canvas.
+     */
+    static class Checker implements Renderer {
+        int frames;  // The number of redraws checked
+
+        @Override
+        public void render(ParticleStore particles, double time) {
+            int n = particles.size();
+            double size = Simulator.DEFAULT_SIZE;
+            for (int i = 0; i < n; i++) {
+                double r = particles.radius(i);
+                assertTrue(particles.x(i) >= r - TOLERANCE && particles.x(i) <= size - r + TOLERANCE,
+                    "Particle " + i + " left the canvas at " + time);
+                assertTrue(particles.y(i) >= r - TOLERANCE && particles.y(i) <= size - r + TOLERANCE,
+                    "Particle " + i + " left the canvas at " + time);
+
+                for (int j = i + 1; j < n; j++) {
+                    double dx = particles.x(i) - particles.x(j), dy = particles.y(i) - particles.y(j);
+                    double sigma = r + particles.radius(j);
+                    assertTrue(Math.sqrt(dx*dx + dy*dy) >= sigma - TOLERANCE,
+                        "Particles " + i + " and " + j + " overlap at " + time);
+                }
+            }
+            frames++;
+        }
+    }
+
+    @Test
+    void energyIsConserved() {
+        ParticleStore particles = lattice(20, 1);
+        double before = particles.kineticEnergy();
+
+        Simulator simulator = new Simulator(particles, new NullRenderer(), Scheduler.HEAP);
+        simulator.simulate(500);
+
+        assertTrue(simulator.events() > 0);
+        assertEquals(before, simulator.energy(), before * 1e-9);
+    }
+
+    @Test
+    void particlesNeverOverlapOrEscape() {
+        for (BroadPhase broadPhase : BroadPhase.values()) {
+            Checker checker = new Checker();
+            Simulator simulator = new Simulator(lattice(15, 2), checker, Scheduler.HEAP, broadPhase);
+            simulator.simulate(300);
+
+            assertTrue(checker.frames > 100, "Too few frames checked with " + broadPhase);
+        }
+    }
+
+    @Test
+    void schedulersProcessTheSameEvents() {
+        ParticleStore heap = lattice(20, 3), calendar = lattice(20, 3);
+        Simulator a = new Simulator(heap, new NullRenderer(), Scheduler.HEAP);
+        Simulator b = new Simulator(calendar, new NullRenderer(), Scheduler.CALENDAR);
+        a.simulate(300);
+        b.simulate(300);
+
+        assertEquals(a.events(), b.events());
+        for (int i = 0; i < heap.size(); i++) {
+            heap.moveTo(i, 300);
+            calendar.moveTo(i, 300);
+            assertEquals(heap.x(i), calendar.x(i), TOLERANCE);
+            assertEquals(heap.y(i), calendar.y(i), TOLERANCE);
+        }
+    }
+
+    @Test
+    void horizonDoesNotChangeTheEvents() {
+        // Re-predicting a particle moves it, which changes the last bits of its position, and
+        // the motion is chaotic, so the runs are only compared exactly over the first collisions
+        ParticleStore expected = lattice(20, 20);
+        Simulator unlimited = new Simulator(expected, new NullRenderer(), Scheduler.HEAP);
+        unlimited.simulate(10);
+
+        for (boolean adaptive : new boolean[] {false, true}) {
+            ParticleStore actual = lattice(20, 20);
+            Simulator limited = new Simulator(actual, new NullRenderer(), Scheduler.HEAP);
+            limited.setHorizon(0.5, adaptive);
+            limited.simulate(10);
+
+            assertEquals(unlimited.events(), limited.events(), "Adaptive: " + adaptive);
+            assertTrue(limited.bookkeeping() > unlimited.bookkeeping(), "Nothing was re-predicted");
+            for (int i = 0; i < expected.size(); i++) {
+                expected.moveTo(i, 10);
+                actual.moveTo(i, 10);
+                assertEquals(expected.x(i), actual.x(i), TOLERANCE);
+                assertEquals(expected.y(i), actual.y(i), TOLERANCE);
+            }
+        }
+    }
+
+    @Test
+    void horizonKeepsThePhysics() {
+        Simulator unlimited = new Simulator(lattice(15, 21), new NullRenderer(), Scheduler.HEAP);
+        unlimited.simulate(300);
+
+        ParticleStore particles = lattice(15, 21);
+        double before = particles.kineticEnergy();
+        Checker checker = new Checker();
+        Simulator limited = new Simulator(particles, checker, Scheduler.HEAP);
+        limited.setHorizon(0.5, true);
+        limited.simulate(300);
+
+        assertTrue(checker.frames > 100);
+        assertEquals(before, limited.energy(), before * 1e-9);
+        assertEquals(unlimited.events(), limited.events(), unlimited.events() * 0.05);
+    }
+}
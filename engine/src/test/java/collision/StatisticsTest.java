@@ -0,0 +1,81 @@
+/**
+ *  Purpose:        Checks the observables of Statistics: the running kinetic energy stays that
+ *                  of the particles and is conserved, and a sample that covers several redraws
+ *                  gives the mean of the samples of those redraws.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class StatisticsTest {
+    /**
+     * A renderer that keeps the pressure and collision frequency of every sample, it is
+     * called right after the sample is taken.
+     */
+    private static class Recorder implements Renderer {
+        final Statistics stats;  // The statistics of the simulation
+        final List<double[]> samples = new ArrayList<>();  // The time, pressure and frequency of each sample
+
+        Recorder(Statistics stats) {
+            this.stats = stats;
+        }
+
+        @Override
+        public void render(ParticleStore particles, double time) {
+            samples.add(new double[] {time, stats.pressure(), stats.frequency()});
+        }
+    }
+
+    @Test
+    void energyIsConserved() {
+        ParticleStore particles = SimulatorTest.lattice(20, 13);
+        double before = particles.kineticEnergy();
+        Statistics stats = new Statistics();
+        Simulator simulator = new Simulator(particles, new NullRenderer(), Scheduler.HEAP);
+        simulator.setStatistics(stats);
+        simulator.simulate(300);
+
+        assertEquals(before, stats.energy(), before * 1e-9);
+        assertEquals(simulator.energy(), stats.energy(), before * 1e-9);
+        assertEquals(stats.energy() / particles.size(), stats.temperature(), before * 1e-9);
+        assertTrue(stats.frequency() > 0 && stats.pressure() > 0);
+    }
+
+    @Test
+    void longSampleIsTheMeanOfTheRedraws() {
+        Statistics everyRedraw = new Statistics();
+        Recorder frames = new Recorder(everyRedraw);
+        Simulator a = new Simulator(SimulatorTest.lattice(20, 14), frames, Scheduler.HEAP);
+        a.setStatistics(everyRedraw);
+        a.simulate(200);
+
+        // 10 redraws of 2 units of time per sample, taken at 20, 40 and so on
+        Statistics everyTwenty = new Statistics(null, 20);
+        Recorder windows = new Recorder(everyTwenty);
+        Simulator b = new Simulator(SimulatorTest.lattice(20, 14), windows, Scheduler.HEAP);
+        b.setStatistics(everyTwenty);
+        b.simulate(200);
+
+        int checked = 0;
+        for (int k = 10; k < frames.samples.size(); k += 10) {
+            double pressure = 0, frequency = 0;
+            for (int f = k - 9; f <= k; f++) {
+                pressure += frames.samples.get(f)[1] / 10;
+                frequency += frames.samples.get(f)[2] / 10;
+            }
+            double[] window = windows.samples.get(k);
+            assertEquals(frames.samples.get(k)[0], window[0]);
+            assertEquals(pressure, window[1], pressure * 1e-9);
+            assertEquals(frequency, window[2], frequency * 1e-9);
+            checked++;
+        }
+        assertTrue(checked >= 5);
+    }
+}
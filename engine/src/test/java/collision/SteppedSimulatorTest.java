@@ -0,0 +1,64 @@
+/**
+ *  Purpose:        Checks that the SteppedSimulator gives the same result whatever the number of
+ *                  threads, and that it keeps the particles inside the canvas.
+ */
+
+package collision;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+class SteppedSimulatorTest {
+    /**
+     * Run the stepped simulator on its own pool.
+     * @param particles The particles, moved by the run
+     * @param threads The parallelism of the pool
+     * @return The simulator at the end of the run
+     */
+    private static SteppedSimulator run(ParticleStore particles, int threads) {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            SteppedSimulator simulator = new SteppedSimulator(particles, new NullRenderer(), 0.1, pool);
+            simulator.simulate(100);
+            return simulator;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void resultDoesNotDependOnThreads() {
+        ParticleStore expected = new RandomScenario(1000, 18).load();
+        SteppedSimulator one = run(expected, 1);
+        assertTrue(one.collisions() > 0);
+
+        for (int threads : new int[] {2, 4, 8}) {
+            ParticleStore actual = new RandomScenario(1000, 18).load();
+            SteppedSimulator many = run(actual, threads);
+            assertEquals(one.steps(), many.steps());
+            assertEquals(one.collisions(), many.collisions(), "With " + threads + " threads");
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.x(i), actual.x(i), "With " + threads + " threads");
+                assertEquals(expected.y(i), actual.y(i), "With " + threads + " threads");
+                assertEquals(expected.vx(i), actual.vx(i), "With " + threads + " threads");
+                assertEquals(expected.vy(i), actual.vy(i), "With " + threads + " threads");
+            }
+        }
+    }
+
+    @Test
+    void particlesStayInside() {
+        ParticleStore particles = SimulatorTest.lattice(20, 19);
+        run(particles, 4);
+        for (int i = 0; i < particles.size(); i++) {
+            double r = particles.radius(i), size = Simulator.DEFAULT_SIZE;
+            assertTrue(particles.x(i) >= r - 1 && particles.x(i) <= size - r + 1, "Particle " + i + " escaped");
+            assertTrue(particles.y(i) >= r - 1 && particles.y(i) <= size - r + 1, "Particle " + i + " escaped");
+        }
+    }
+}
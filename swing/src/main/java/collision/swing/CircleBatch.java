@@ -0,0 +1,56 @@
+/**
+ *  Purpose:        Collects the circles of one frame so they can be drawn with a single call
+ *                  to Draw.fillCircles(), or to the PixelCanvas of an offscreen image. The
+ *                  arrays are kept from frame to frame and only grow, so collecting a frame
+ *                  allocates nothing once the batch is large enough.
+ */
+
+package collision.swing;
+
+import java.util.Arrays;
+
+class CircleBatch {
+    private int size;  // The number of circles collected so far
+    private int[] x = new int[16], y = new int[16];  // The center of each circle
+    private int[] radius = new int[16];  // The radius of each circle
+    private int[] color = new int[16];  // The color of each circle as packed 0xRRGGBB
+
+    /**
+     * Add a circle to the batch, the position and radius are rounded to whole pixels.
+     * @param cx The x-coordinate of the center
+     * @param cy The y-coordinate of the center
+     * @param r The radius
+     * @param rgb The color as packed 0xRRGGBB
+     */
+    void add(double cx, double cy, double r, int rgb) {
+        if (size == x.length) {
+            x = Arrays.copyOf(x, 2 * size);
+            y = Arrays.copyOf(y, 2 * size);
+            radius = Arrays.copyOf(radius, 2 * size);
+            color = Arrays.copyOf(color, 2 * size);
+        }
+
+        x[size] = (int) Math.round(cx);
+        y[size] = (int) Math.round(cy);
+        radius[size] = (int) Math.round(r);
+        color[size] = rgb;
+        size++;
+    }
+
+    /**
+     * Draw all the circles of the batch on the Draw canvas and empty the batch.
+     */
+    void draw() {
+        Draw.fillCircles(size, x, y, radius, color);
+        size = 0;
+    }
+
+    /**
+     * Draw all the circles of the batch on the given canvas and empty the batch.
+     * @param canvas The canvas to draw on
+     */
+    void draw(PixelCanvas canvas) {
+        canvas.fillCircles(size, x, y, radius, color);
+        size = 0;
+    }
+}
@@ -1,11 +1,14 @@
 /**
  *  Author:     Khoa Nam Pham
- *  Date modified:  03/02/2020
+ *  Date modified:  16/10/2026
  *  Purpose:    This class provides useful methods to support 2D graphics 
  *              operations such as drawing different shapes, set drawing pen color, etc.
  *              This class used Java Swing library to support some operations related to 
  *              frame.   
  */
+
+package collision.swing;
+
 import java.awt.Color;
 import java.awt.Graphics2D;
 
@@ -49,6 +52,9 @@ public class Draw {
 
     private static boolean doubleBuffering = false;
 
+    // Batched circles are written straight into the pixels of the offscreen image
+    private static PixelCanvas canvas;
+
     // Singleton, can only create on instance of the class
     public Draw() {}
 
@@ -69,6 +75,7 @@ public class Draw {
         offScreenImage = new BufferedImage(DEFAULT_SIZE, DEFAULT_SIZE, BufferedImage.TYPE_INT_ARGB);
         onScreen = onScreenImage.createGraphics();
         offScreen = offScreenImage.createGraphics();
+        canvas = new PixelCanvas(offScreenImage, true);
 
         // Make the screen blank
         offScreen.setColor(DEFAULT_CLEAR_COLOR);
@@ -192,6 +199,24 @@ public class Draw {
         draw();
     }
 
+    /**
+     * Draw many solid circles at once, each with its own color. The circles are written straight
+     * into the pixels of the canvas without antialiasing, in the given order so the later ones
+     * cover the earlier ones. With many circles the canvas is split into bands of rows that are
+     * drawn in parallel. The pen color is not changed.
+     * @param n The number of circles
+     * @param x The x-coordinate of the center of each circle
+     * @param y The y-coordinate of the center of each circle
+     * @param radius The radius of each circle
+     * @param color The color of each circle as packed 0xRRGGBB
+     *
+     * @throws IllegalArgumentException when an array is shorter than n or a radius is negative
+     */
+    public static void fillCircles(int n, int[] x, int[] y, int[] radius, int[] color) {
+        canvas.fillCircles(n, x, y, radius, color);
+        draw();
+    }
+
     /**
      * Draw a hollow rectangle given the coordinate of the upper left corner and the width and height.
      *  
@@ -0,0 +1,47 @@
+/**
+ *  Purpose:        A renderer that shows the particles on the Draw canvas.
+ *                  Each frame is followed by a short pause to keep the animation smooth.
+ *                  The particles are drawn as one batch straight into the pixels of the canvas.
+ */
+
+package collision.swing;
+
+import collision.ParticleStore;
+import collision.Renderer;
+
+public class DrawRenderer implements Renderer {
+    public static final int DEFAULT_PAUSE = 40;  // Milliseconds to wait after each frame
+
+    private int pause;  // The amount of time to wait after each frame
+    private final CircleBatch batch = new CircleBatch();  // The particles of the frame being drawn
+
+    /**
+     * Create a renderer with the DEFAULT_PAUSE between frames.
+     */
+    public DrawRenderer() {
+        this(DEFAULT_PAUSE);
+    }
+
+    /**
+     * Create a renderer with the given pause between frames.
+     * @param pause The amount of time to wait after each frame in milliseconds
+     * @throws IllegalArgumentException when the pause is negative
+     */
+    public DrawRenderer(int pause) {
+        if (pause < 0)
+            throw new IllegalArgumentException("Pause cannot be negative");
+
+        this.pause = pause;
+    }
+
+    @Override
+    public void render(ParticleStore particles, double time) {
+        Draw.clear();
+        for (int i = 0; i < particles.size(); i++)
+            batch.add(particles.x(i), particles.y(i), particles.radius(i), particles.color(i));
+        batch.draw();
+
+        Draw.show();
+        Draw.pause(pause);
+    }
+}
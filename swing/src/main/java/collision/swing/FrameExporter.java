@@ -0,0 +1,307 @@
+/**
+ *  Purpose:        A renderer that exports every frame of a headless simulation to image files,
+ *                  much faster than recording the window in real time. At each redraw event the
+ *                  simulation thread only copies the particles into a Frame and hands it to a
+ *                  pool of worker threads. Each worker draws its frames with a PixelCanvas on its
+ *                  own offscreen image and encodes them, so both the drawing and the encoding of
+ *                  different frames run in parallel.
+ *                  - A directory gets one PNG file per frame, written by the workers themselves.
+ *                  - A file ending with .gif gets an animated GIF. Every worker encodes its frame
+ *                    as a GIF of its own, and the simulation thread appends the image blocks of
+ *                    those GIFs to the animation in the order of the frames, each with its own
+ *                    color table.
+ *                  Only a fixed number of frames are in flight at once, the simulation waits for
+ *                  the oldest one when all of them are, so the memory used does not grow with a
+ *                  simulation that is faster than the workers.
+ */
+
+package collision.swing;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.imageio.ImageIO;
+
+import collision.Frame;
+import collision.ParticleStore;
+import collision.Renderer;
+import collision.Simulator;
+
+public class FrameExporter implements Renderer, Closeable {
+    private static final int BACKGROUND = 0xFFFFFF;  // The background color, the same as the window
+    private static final int FRAMES_PER_THREAD = 2;  // The number of frames in flight per worker
+
+    /**
+     * What a worker keeps from one frame to the next.
+     */
+    private static class Worker {
+        final BufferedImage image;  // The image the frames are drawn on
+        final PixelCanvas canvas;  // Draws into the pixels of the image
+        final CircleBatch batch = new CircleBatch();  // The particles of the frame being drawn
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();  // The encoded GIF frame
+
+        Worker(int width, int height) {
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            canvas = new PixelCanvas(image, false);
+        }
+    }
+
+    /**
+     * A frame handed to the workers, with the result of its export.
+     */
+    private static class Pending {
+        final Frame frame;  // The snapshot, owned by the workers until the export is done
+        final Future<byte[]> export;  // The encoded GIF frame, or null for a PNG file
+
+        Pending(Frame frame, Future<byte[]> export) {
+            this.frame = frame;
+            this.export = export;
+        }
+    }
+
+    private final Path target;  // The PNG directory or the GIF file
+    private final boolean gif;  // Whether the frames make up one animated GIF
+    private final int width = Simulator.DEFAULT_SIZE, height = Simulator.DEFAULT_SIZE;  // Image size
+    private final int delay;  // The time each GIF frame is shown, in hundredths of a second
+    private final ExecutorService workers;  // Draw and encode the frames
+    private final ThreadLocal<Worker> worker = ThreadLocal.withInitial(() -> new Worker(width, height));
+    private final ArrayDeque<Frame> free = new ArrayDeque<>();  // The frames not in flight
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();  // The frames in flight, oldest first
+    private OutputStream out;  // The animated GIF, null for PNG files
+    private long taken;  // The number of frames taken from the simulation
+    private long exported;  // The number of frames written
+
+    /**
+     * Create an exporter that writes to the given target: an animated GIF if its name ends
+     * with .gif, or otherwise a directory of PNG files that is created if needed.
+     * @param target The GIF file or the PNG directory, an existing file is replaced
+     * @param threads The number of worker threads
+     * @param fps The number of frames per second the GIF is played at
+     * @throws IllegalArgumentException when the target is null, or the number of threads or
+     *                                  the frame rate is not positive
+     * @throws IOException when the target cannot be created
+     */
+    public FrameExporter(Path target, int threads, int fps) throws IOException {
+        if (target == null)
+            throw new IllegalArgumentException("Export target cannot be null");
+        if (threads <= 0)
+            throw new IllegalArgumentException("Number of threads must be positive");
+        if (fps <= 0)
+            throw new IllegalArgumentException("Frame rate must be positive");
+
+        this.target = target;
+        this.gif = target.getFileName().toString().toLowerCase().endsWith(".gif");
+        this.delay = Math.max(1, Math.round(100f / fps));
+
+        if (gif) {
+            out = new BufferedOutputStream(Files.newOutputStream(target));
+            writeHeader();
+        }
+        else
+            Files.createDirectories(target);
+
+        for (int k = 0; k < FRAMES_PER_THREAD * threads; k++)
+            free.add(new Frame());
+        workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "frame-exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Hand a snapshot of the particles to the workers, waiting for the oldest frame in flight
+     * when there is no free one.
+     * @throws UncheckedIOException when a frame could not be written
+     * @throws IllegalStateException when a frame could not be drawn
+     */
+    @Override
+    public void render(ParticleStore particles, double time) {
+        if (free.isEmpty())
+            finish(pending.remove());
+
+        Frame frame = free.remove();
+        frame.copy(particles, time, ++taken);
+        pending.add(new Pending(frame, workers.submit(() -> export(frame))));
+    }
+
+    /**
+     * Returns the number of frames written so far.
+     * @return The number of frames written
+     */
+    public long exported() {
+        return exported;
+    }
+
+    /**
+     * Wait for every frame in flight to be written, finish the GIF and stop the workers.
+     * @throws IOException when the GIF cannot be finished
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            while (!pending.isEmpty())
+                finish(pending.remove());
+            if (out != null) {
+                out.write(0x3B);  // Trailer
+                out.close();
+            }
+        }
+        finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Draw and encode one frame on a worker thread.
+     * @param frame The frame
+     * @return The frame as a GIF of its own, or null when it was written to a PNG file
+     * @throws IOException when the frame cannot be encoded or written
+     */
+    private byte[] export(Frame frame) throws IOException {
+        Worker w = worker.get();
+        w.canvas.clear(BACKGROUND);
+        for (int i = 0; i < frame.size(); i++)
+            w.batch.add(frame.x(i), frame.y(i), frame.radius(i), frame.color(i));
+        w.batch.draw(w.canvas);
+
+        if (!gif) {
+            Path file = target.resolve(String.format("frame-%06d.png", frame.number()));
+            if (!ImageIO.write(w.image, "png", file.toFile()))
+                throw new IOException("No PNG encoder available");
+            return null;
+        }
+
+        w.bytes.reset();
+        if (!ImageIO.write(w.image, "gif", w.bytes))
+            throw new IOException("No GIF encoder available");
+        return w.bytes.toByteArray();
+    }
+
+    /**
+     * Wait for a frame to be exported, append it to the GIF and free it.
+     * @param p The frame in flight
+     * @throws UncheckedIOException when the frame could not be written
+     * @throws IllegalStateException when the frame could not be drawn
+     */
+    private void finish(Pending p) {
+        try {
+            byte[] bytes = p.export.get();
+            if (gif) appendImage(bytes);
+            exported++;
+            free.add(p.frame);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException)
+                throw new UncheckedIOException("Cannot export the frames", (IOException) e.getCause());
+            throw new IllegalStateException("A frame could not be exported", e.getCause());
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while exporting the frames", e);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot write the GIF", e);
+        }
+    }
+
+    /**
+     * Write the start of the animated GIF: the header, the screen without a global color
+     * table and the extension that loops the animation forever.
+     * @throws IOException when the GIF cannot be written
+     */
+    private void writeHeader() throws IOException {
+        out.write("GIF89a".getBytes(StandardCharsets.US_ASCII));
+        writeShort(width);
+        writeShort(height);
+        out.write(0x70);  // No global color table, 8 bits per primary color
+        out.write(0);  // Background color
+        out.write(0);  // Square pixels
+
+        out.write(new byte[] {0x21, (byte) 0xFF, 0x0B});
+        out.write("NETSCAPE2.0".getBytes(StandardCharsets.US_ASCII));
+        out.write(new byte[] {0x03, 0x01, 0x00, 0x00, 0x00});  // Loop forever
+    }
+
+    /**
+     * Append the image of a GIF with a single frame to the animation, with the delay of a
+     * frame and the color table of that GIF as its own.
+     * @param bytes The GIF with a single frame
+     * @throws IOException when the GIF is not as expected or the animation cannot be written
+     */
+    private void appendImage(byte[] bytes) throws IOException {
+        byte[] table = null;
+        int pos = 13;  // After the header and the logical screen descriptor
+        int packed = bytes[10] & 0xFF;
+        if ((packed & 0x80) != 0) {
+            table = Arrays.copyOfRange(bytes, pos, pos + (3 << ((packed & 7) + 1)));
+            pos += table.length;
+        }
+
+        // Skip the extensions, the animation has its own
+        while (bytes[pos] == 0x21)
+            pos = skipBlocks(bytes, pos + 2);
+        if (bytes[pos] != 0x2C)
+            throw new IOException("Unexpected block in the GIF frame");
+
+        int descriptor = pos;
+        packed = bytes[pos + 9] & 0xFF;
+        pos += 10;
+        if ((packed & 0x80) != 0) {
+            table = Arrays.copyOfRange(bytes, pos, pos + (3 << ((packed & 7) + 1)));
+            pos += table.length;
+        }
+        if (table == null)
+            throw new IOException("GIF frame without a color table");
+        int data = pos;
+        pos = skipBlocks(bytes, pos + 1);  // The LZW code size, then the image data
+
+        // Graphics control extension: keep the frame when the next one comes, shown for the delay
+        out.write(new byte[] {0x21, (byte) 0xF9, 0x04, 0x04});
+        writeShort(delay);
+        out.write(new byte[] {0x00, 0x00});
+
+        // Image descriptor with a local color table, interlacing kept as it was
+        int bits = Integer.numberOfTrailingZeros(table.length / 3) - 1;
+        out.write(bytes, descriptor, 9);
+        out.write(0x80 | (packed & 0x40) | bits);
+        out.write(table);
+        out.write(bytes, data, pos - data);
+    }
+
+    /**
+     * Returns the position after a sequence of data sub-blocks.
+     * @param bytes The GIF
+     * @param pos The position of the first sub-block
+     * @return The position after the terminating empty sub-block
+     */
+    private static int skipBlocks(byte[] bytes, int pos) {
+        while (bytes[pos] != 0)
+            pos += (bytes[pos] & 0xFF) + 1;
+        return pos + 1;
+    }
+
+    /**
+     * Write an unsigned 16-bit value, least significant byte first.
+     * @param value The value
+     * @throws IOException when the GIF cannot be written
+     */
+    private void writeShort(int value) throws IOException {
+        out.write(value & 0xFF);
+        out.write((value >> 8) & 0xFF);
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ *  Purpose:        Draws the frames that a simulation publishes to a FrameBuffer on the Draw
+ *                  canvas. A Swing timer takes the latest frame on the event dispatch thread at
+ *                  its own frame rate, so the simulation runs on its own thread without ever
+ *                  pausing for the display. When the simulation publishes frames faster than
+ *                  they are drawn, only the latest one is drawn and the others are dropped.
+ *                  The particles are drawn as one batch straight into the pixels of the canvas.
+ */
+
+package collision.swing;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+import collision.Frame;
+import collision.FrameClock;
+import collision.FrameBuffer;
+
+public class FramePainter {
+    public static final int DEFAULT_FPS = FrameClock.DEFAULT_FPS;  // Default number of frames drawn per second
+
+    private final FrameBuffer frames;  // Where the simulation publishes the frames
+    private final Timer timer;  // Draws the latest frame on the event dispatch thread
+    private final CircleBatch batch = new CircleBatch();  // The particles of the frame being drawn
+
+    /**
+     * Create a painter that draws DEFAULT_FPS frames per second.
+     * @param frames Where the simulation publishes the frames
+     */
+    public FramePainter(FrameBuffer frames) {
+        this(frames, DEFAULT_FPS);
+    }
+
+    /**
+     * Create a painter that draws at most the given number of frames per second.
+     * @param frames Where the simulation publishes the frames
+     * @param fps The number of frames drawn per second
+     * @throws IllegalArgumentException when the buffer is null or the frame rate is not positive
+     */
+    public FramePainter(FrameBuffer frames, int fps) {
+        if (frames == null)
+            throw new IllegalArgumentException("Frame buffer cannot be null");
+        if (fps <= 0)
+            throw new IllegalArgumentException("Frame rate must be positive");
+
+        this.frames = frames;
+        timer = new Timer(1000 / fps, e -> paint());
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * Start drawing the frames.
+     */
+    public void start() {
+        timer.start();
+    }
+
+    /**
+     * Stop drawing the frames, after drawing the last one if it was not drawn yet.
+     */
+    public void stop() {
+        timer.stop();
+        SwingUtilities.invokeLater(this::paint);
+    }
+
+    /**
+     * Draw the latest frame, nothing happens if there is no new one.
+     */
+    private void paint() {
+        Frame frame = frames.take();
+        if (frame == null) return;
+
+        Draw.clear();
+        for (int i = 0; i < frame.size(); i++)
+            batch.add(frame.x(i), frame.y(i), frame.radius(i), frame.color(i));
+        batch.draw();
+        Draw.show();
+    }
+}
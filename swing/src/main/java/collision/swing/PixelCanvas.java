@@ -0,0 +1,134 @@
+/**
+ *  Purpose:        Draws batches of solid circles straight into the pixels of an image, row after
+ *                  row, without going through Graphics2D. Each radius has a sprite: the first and
+ *                  last column of every row of the circle relative to its center, so a row is
+ *                  filled with a single Arrays.fill.
+ *                  Draw uses one for its canvas, and any offscreen image with int pixels can have
+ *                  its own, so several threads can each draw into their own image at once.
+ *                  A canvas itself is only used by one thread at a time.
+ */
+
+package collision.swing;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+class PixelCanvas {
+    private static final int PARALLEL_CIRCLES = 10000;  // Fewer circles than this are drawn on one thread
+    private static final int MIN_BAND_HEIGHT = 16;  // The smallest band of rows drawn by one thread
+
+    private final int[] pixels;  // The ARGB pixels of the image, row after row
+    private final int width, height;  // The size of the image
+    private final boolean parallel;  // Whether many circles are drawn in bands on several threads
+    private int[][] sprites = new int[0][];  // The sprite of each radius, null until it is used
+
+    /**
+     * Create a canvas over the pixels of an image.
+     * @param image The image, of TYPE_INT_RGB or TYPE_INT_ARGB
+     * @param parallel true to split the rows into bands drawn in parallel when there are many circles
+     * @throws IllegalArgumentException when the image does not store its pixels as ints
+     */
+    PixelCanvas(BufferedImage image, boolean parallel) {
+        if (!(image.getRaster().getDataBuffer() instanceof DataBufferInt))
+            throw new IllegalArgumentException("Image must store its pixels as ints");
+
+        this.pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        this.width = image.getWidth();
+        this.height = image.getHeight();
+        this.parallel = parallel;
+    }
+
+    /**
+     * Fill the whole canvas with one color.
+     * @param rgb The color as packed 0xRRGGBB
+     */
+    void clear(int rgb) {
+        Arrays.fill(pixels, 0, width * height, 0xFF000000 | rgb);
+    }
+
+    /**
+     * Draw many solid circles at once, each with its own color, see Draw.fillCircles().
+     * @param n The number of circles
+     * @param x The x-coordinate of the center of each circle
+     * @param y The y-coordinate of the center of each circle
+     * @param radius The radius of each circle
+     * @param color The color of each circle as packed 0xRRGGBB
+     *
+     * @throws IllegalArgumentException when an array is shorter than n or a radius is negative
+     */
+    void fillCircles(int n, int[] x, int[] y, int[] radius, int[] color) {
+        if (x.length < n || y.length < n || radius.length < n || color.length < n)
+            throw new IllegalArgumentException("Every array must hold at least n circles");
+
+        // The sprites are made before the bands start, so the threads only read them
+        for (int i = 0; i < n; i++)
+            sprite(radius[i]);
+
+        int bands = parallel ? Math.min(Runtime.getRuntime().availableProcessors(), height / MIN_BAND_HEIGHT) : 1;
+        if (n < PARALLEL_CIRCLES || bands <= 1)
+            fillBand(n, x, y, radius, color, 0, height);
+        else {
+            int rows = (height + bands - 1) / bands;
+            IntStream.range(0, bands).parallel().forEach(b ->
+                fillBand(n, x, y, radius, color, b * rows, Math.min(height, (b + 1) * rows)));
+        }
+    }
+
+    /**
+     * Draw the rows of the given circles that fall into a band of the canvas.
+     * @param n The number of circles
+     * @param x The x-coordinate of the center of each circle
+     * @param y The y-coordinate of the center of each circle
+     * @param radius The radius of each circle
+     * @param color The color of each circle as packed 0xRRGGBB
+     * @param top The first row of the band
+     * @param bottom The row after the last row of the band
+     */
+    private void fillBand(int n, int[] x, int[] y, int[] radius, int[] color, int top, int bottom) {
+        for (int i = 0; i < n; i++) {
+            int r = radius[i], cy = y[i];
+            int from = Math.max(top, cy - r), to = Math.min(bottom, cy + r);
+            if (from >= to) continue;
+
+            int[] sprite = sprites[r];
+            int cx = x[i], argb = 0xFF000000 | color[i];
+            for (int row = from; row < to; row++) {
+                int k = 2 * (row - cy + r);
+                int left = Math.max(0, cx + sprite[k]), right = Math.min(width - 1, cx + sprite[k + 1]);
+                if (left <= right)
+                    Arrays.fill(pixels, row * width + left, row * width + right + 1, argb);
+            }
+        }
+    }
+
+    /**
+     * Returns the sprite of a circle with the given radius, making it the first time.
+     * The sprite holds the first and the last column of every row relative to the center,
+     * a pixel is inside the circle when its center is.
+     * @param r The radius
+     * @return The first and last column of the rows from the top, 2 values per row
+     * @throws IllegalArgumentException when the radius is negative
+     */
+    private int[] sprite(int r) {
+        if (r < 0)
+            throw new IllegalArgumentException("Invalid radius, radius cannot be negative");
+        if (r < sprites.length && sprites[r] != null)
+            return sprites[r];
+
+        if (r >= sprites.length)
+            sprites = Arrays.copyOf(sprites, Math.max(r + 1, 2 * sprites.length));
+
+        int[] sprite = new int[4 * r];
+        for (int dy = -r; dy < r; dy++) {
+            double h = Math.sqrt((double) r * r - (dy + 0.5) * (dy + 0.5));
+            int k = 2 * (dy + r);
+            sprite[k] = (int) Math.ceil(-h - 0.5);
+            sprite[k + 1] = (int) Math.floor(h - 0.5);
+        }
+        sprites[r] = sprite;
+        return sprite;
+    }
+}
@@ -0,0 +1,148 @@
+/**
+ *  Purpose:        Runs the simulation in a window. The engine itself does not know about
+ *                  Swing, this class plugs the DrawRenderer into it.
+ *                  With --async the simulation publishes frames to a FrameBuffer instead and a
+ *                  FramePainter draws them on the event dispatch thread at --fps=<n> frames per
+ *                  second, so the physics never pauses for the display.
+ *                  The frames follow a FrameClock: --frame-time=<t> sets the simulation time per
+ *                  frame and the window is paced at --fps=<n>, skipping frames when the physics
+ *                  falls behind. --max-speed never waits and only draws the frames the frame rate
+ *                  allows, which gives the physics all the time the display does not need.
+ *                  With --export=<target> no window is opened, every frame is exported to a
+ *                  directory of PNG files or to an animated GIF by a FrameExporter instead.
+ */
+
+package collision.swing;
+
+import collision.BroadPhase;
+import collision.FrameBuffer;
+import collision.FrameClock;
+import collision.Options;
+import collision.ParallelSimulator;
+import collision.Renderer;
+import collision.Scheduler;
+import collision.Simulator;
+import collision.SimulatorMetrics;
+import collision.SteppedSimulator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+
+public class SimulatorApp {
+    // Only the main method is used
+    private SimulatorApp() {}
+
+    public static void main(String[] args) {
+        if (args.length < 2)
+            System.out.println("Please specify the number of particles and the simulation time");
+        else {
+            int pNum = Integer.parseInt(args[0]);
+            double limit = Double.parseDouble(args[1]);
+            boolean headless = Options.has(args, "--headless");
+            String export = Options.get(args, "export", null);
+
+            if (export != null) {
+                export(args, pNum, limit, Paths.get(export));
+            }
+            else if (headless) {
+                Simulator.main(args);
+            }
+            else {
+                Draw.enableDoubleBuffering();
+                Draw.setLabel("Particles Simulator");
+
+                // The clock paces the drawn frames, unless they are drawn asynchronously
+                boolean async = Options.has(args, "--async");
+                FrameClock clock = FrameClock.fromOptions(args, !async);
+                FrameBuffer frames = new FrameBuffer();
+                FramePainter painter = null;
+                Renderer renderer = new DrawRenderer(0);
+                if (async) {
+                    painter = new FramePainter(frames,
+                        Integer.parseInt(Options.get(args, "fps", String.valueOf(FramePainter.DEFAULT_FPS))));
+                    renderer = frames;
+                    painter.start();
+                }
+
+                run(args, pNum, limit, renderer, clock);
+                System.out.printf("%d frames drawn, %d skipped%n", clock.drawn(), clock.skipped());
+
+                if (painter != null) {
+                    painter.stop();
+                    System.out.printf("%d frames published, %d dropped%n", frames.published(), frames.dropped());
+                }
+            }
+        }
+    }
+
+    /**
+     * Run the engine asked for with --engine on the given renderer and frame clock.
+     * @param args The command line arguments
+     * @param pNum The number of particles
+     * @param limit The simulation time limit
+     * @param renderer The renderer used at every drawn frame
+     * @param clock The frame clock
+     */
+    private static void run(String[] args, int pNum, double limit, Renderer renderer, FrameClock clock) {
+        Scheduler scheduler = Scheduler.of(Options.get(args, "scheduler", "heap"));
+        String engine = Options.get(args, "engine", "event");
+
+        if (engine.equals("stepped")) {
+            double dt = Double.parseDouble(Options.get(args, "dt", String.valueOf(SteppedSimulator.DEFAULT_STEP)));
+            SteppedSimulator simulator =
+                new SteppedSimulator(Simulator.load(args, pNum), renderer, dt, ForkJoinPool.commonPool());
+            simulator.setFrameClock(clock);
+            simulator.simulate(limit);
+        }
+        else if (engine.equals("parallel")) {
+            ParallelSimulator simulator =
+                new ParallelSimulator(Simulator.load(args, pNum), renderer, scheduler, ForkJoinPool.commonPool());
+            simulator.setFrameClock(clock);
+            simulator.simulate(limit);
+        }
+        else {
+            Simulator simulator = new Simulator(Simulator.load(args, pNum), renderer, scheduler,
+                BroadPhase.of(Options.get(args, "broad-phase", "grid")));
+            simulator.setMetrics(SimulatorMetrics.fromOptions(args));
+            simulator.setFrameClock(clock);
+            simulator.simulate(limit);
+        }
+    }
+
+    /**
+     * Run the simulation without a window and export every frame. --frame-time=<t> sets the
+     * simulation time between 2 frames, --fps=<n> the speed the GIF is played at and
+     * --export-threads=<n> the number of threads that draw and encode the frames.
+     * @param args The command line arguments
+     * @param pNum The number of particles
+     * @param limit The simulation time limit
+     * @param target The PNG directory or the GIF file
+     * @throws UncheckedIOException when the frames cannot be written
+     */
+    private static void export(String[] args, int pNum, double limit, Path target) {
+        System.setProperty("java.awt.headless", "true");
+        int threads = Integer.parseInt(Options.get(args, "export-threads",
+            String.valueOf(Runtime.getRuntime().availableProcessors())));
+        int fps = Integer.parseInt(Options.get(args, "fps", String.valueOf(FrameClock.DEFAULT_FPS)));
+
+        try {
+            long start = System.nanoTime();
+            FrameExporter exporter = new FrameExporter(target, threads, fps);
+            try {
+                run(args, pNum, limit, exporter, FrameClock.fromOptions(args, false));
+            }
+            finally {
+                exporter.close();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%d frames exported to %s in %.3f s on %d threads (%.1f frames/s)%n",
+                exporter.exported(), target, seconds, threads, exporter.exported() / seconds);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Cannot export the frames", e);
+        }
+    }
+}